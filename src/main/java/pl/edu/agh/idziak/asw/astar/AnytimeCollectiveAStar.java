@@ -0,0 +1,315 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.idziak.asw.model.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Anytime repairing collective A* (ARA*). The first path is found with the heuristic inflated by the initial
+ * weight, which usually takes a fraction of the time of a plain A* search. The weight is then decreased step by
+ * step and every search reuses the results of the previous one, publishing each cheaper path it finds, until the
+ * weight reaches 1 or the deadline passes.
+ * <p>
+ * The reported bound is the weight of the last completed search. It limits the cost of the path relative to the
+ * optimal one when the heuristic is admissible, and relative to the path found with weight 1 otherwise.
+ * <p>
+ * A {@link SearchControl} stops the search like the deadline, with the best path found so far returned along with
+ * the reason.
+ */
+public class AnytimeCollectiveAStar<SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>>
+        implements CollectiveAStar<SS, CS, D> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnytimeCollectiveAStar.class);
+
+    private final AbstractNumberHandler<D> numHandler;
+    private final double initialWeight;
+    private final double weightDecrement;
+    private final long timeBudgetNanos;
+    private final Ticker ticker;
+
+    /**
+     * Engine running until the optimal path is found.
+     */
+    public AnytimeCollectiveAStar(AbstractNumberHandler<D> abstractNumberHandler, double initialWeight,
+                                  double weightDecrement) {
+        this(abstractNumberHandler, initialWeight, weightDecrement, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Engine returning the best path found within the given time budget from {@link #calculatePath(InputPlan,
+     * boolean, SearchControl)}.
+     */
+    public AnytimeCollectiveAStar(AbstractNumberHandler<D> abstractNumberHandler, double initialWeight,
+                                  double weightDecrement, long timeBudget, TimeUnit unit) {
+        this(abstractNumberHandler, initialWeight, weightDecrement, timeBudget, unit, Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker source of time for the time budget and the timeouts of the searches
+     */
+    public AnytimeCollectiveAStar(AbstractNumberHandler<D> abstractNumberHandler, double initialWeight,
+                                  double weightDecrement, long timeBudget, TimeUnit unit, Ticker ticker) {
+        Preconditions.checkArgument(initialWeight >= 1, "Initial weight must not be lower than 1");
+        Preconditions.checkArgument(weightDecrement > 0, "Positive weight decrement required");
+        this.numHandler = abstractNumberHandler;
+        this.initialWeight = initialWeight;
+        this.weightDecrement = weightDecrement;
+        this.timeBudgetNanos = unit.toNanos(timeBudget);
+        this.ticker = Preconditions.checkNotNull(ticker);
+    }
+
+    @Override
+    public CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats,
+                                                    SearchControl searchControl) {
+        return calculatePath(inputPlan, gatherStats, searchControl, results -> {
+        });
+    }
+
+    /**
+     * Search stopped by the time budget of the engine or by the given control, whichever comes first.
+     *
+     * @param improvedPathListener called with every path cheaper than the previously published one, together with
+     *                             its bound; a search which only proves a tighter bound for the same cost does not
+     *                             call it
+     * @return best path found before the search stopped with the tightest bound proven for its cost, or null path
+     * if none was found
+     */
+    public CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats,
+                                                    SearchControl searchControl,
+                                                    Consumer<CollectiveAStarResults<CS>> improvedPathListener) {
+        return search(new Accumulator(inputPlan, gatherStats, timeBudgetNanos, searchControl), improvedPathListener);
+    }
+
+    /**
+     * Search stopped by the given timeout instead of the time budget of the engine.
+     *
+     * @see #calculatePath(InputPlan, boolean, SearchControl, Consumer)
+     */
+    public CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats,
+                                                    long timeout, TimeUnit unit,
+                                                    Consumer<CollectiveAStarResults<CS>> improvedPathListener) {
+        return search(new Accumulator(inputPlan, gatherStats, unit.toNanos(timeout), SearchControl.unlimited()),
+                improvedPathListener);
+    }
+
+    private CollectiveAStarResults<CS> search(Accumulator acc,
+                                              Consumer<CollectiveAStarResults<CS>> improvedPathListener) {
+        acc.gScore.put(acc.start, numHandler.getZero());
+        acc.inconsistent.add(acc.start);
+
+        CollectiveAStarResults<CS> best = new CollectiveAStarResults<>(null, acc.stats);
+        D bestCost = null;
+        double weight = initialWeight;
+
+        while (true) {
+            acc.weight = weight;
+            rebuildOpenSet(acc);
+
+            if (!improvePath(acc)) {
+                break;
+            }
+            D cost = acc.gScore.get(acc.goal);
+            if (bestCost == null || numHandler.lessThan(cost, bestCost)) {
+                bestCost = cost;
+                best = new CollectiveAStarResults<>(reconstructPath(acc), acc.stats, weight);
+                LOG.debug("Path of cost {} found with weight {}", cost, weight);
+                improvedPathListener.accept(best);
+            } else {
+                best = new CollectiveAStarResults<>(best.getCollectivePath(), acc.stats, weight);
+            }
+
+            if (weight <= 1) {
+                acc.terminationReason = TerminationReason.GOAL_REACHED;
+                break;
+            }
+            if (isStopped(acc)) {
+                break;
+            }
+            weight = Math.max(1, weight - weightDecrement);
+        }
+        return new CollectiveAStarResults<>(best.getCollectivePath(), acc.stats, best.getSuboptimalityBound(),
+                acc.terminationReason);
+    }
+
+    /**
+     * Expands states until the goal has the lowest inflated f-score.
+     *
+     * @return false if the goal is unreachable or the search was stopped, with the reason recorded
+     */
+    private boolean improvePath(Accumulator acc) {
+        OpenEntry entry;
+        while ((entry = pollValidEntry(acc)) != null) {
+            D goalGScore = acc.gScore.get(acc.goal);
+            if (goalGScore != null && !numHandler.lessThan(inflatedFScore(acc, acc.goal, goalGScore), entry.fScore)) {
+                acc.openSet.add(entry);
+                return true;
+            }
+            if (isStopped(acc)) {
+                return false;
+            }
+
+            if (acc.gatherStats) {
+                acc.stats.logSizeOfOpenSet(acc.openSet.size());
+            }
+
+            CS current = entry.state;
+            acc.openStates.remove(current);
+            acc.closedSet.add(current);
+            acc.stats.countExpandedNode();
+
+            iterateNeighbors(acc, current);
+        }
+        if (!acc.gScore.containsKey(acc.goal)) {
+            acc.terminationReason = TerminationReason.OPEN_SET_EXHAUSTED;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the deadline has passed or a limit of the search control has been exceeded, which is then
+     * recorded as the reason to stop
+     */
+    private boolean isStopped(Accumulator acc) {
+        if (ticker.read() - acc.startNanos > acc.timeoutNanos) {
+            acc.terminationReason = TerminationReason.DEADLINE_EXCEEDED;
+        } else {
+            acc.terminationReason = acc.searchControl.check(acc.stats.getExpandedNodesCount(), acc.openSet.size());
+        }
+        if (acc.terminationReason != null) {
+            LOG.debug("Search stopped ({}) with weight {}", acc.terminationReason, acc.weight);
+            return true;
+        }
+        return false;
+    }
+
+    private OpenEntry pollValidEntry(Accumulator acc) {
+        OpenEntry entry;
+        while ((entry = acc.openSet.poll()) != null) {
+            if (acc.openStates.contains(entry.state) && entry.gScore.equals(acc.gScore.get(entry.state))) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void iterateNeighbors(Accumulator acc, CS current) {
+        Set<CS> neighborsOfCurrent = acc.stateSpace.getNeighborStatesOf(current);
+        acc.stats.countGeneratedNodes(neighborsOfCurrent.size());
+        D currentGScore = acc.gScore.get(current);
+
+        for (CS neighbor : neighborsOfCurrent) {
+            D tentativeGScore = numHandler.add(currentGScore, acc.costFunction.getHeuristicCost(current, neighbor));
+            D neighborGScore = acc.gScore.get(neighbor);
+
+            if (neighborGScore != null && numHandler.greaterOrEqual(tentativeGScore, neighborGScore)) {
+                continue;
+            }
+            acc.cameFrom.put(neighbor, current);
+            acc.gScore.put(neighbor, tentativeGScore);
+
+            if (acc.closedSet.contains(neighbor)) {
+                acc.inconsistent.add(neighbor);
+            } else {
+                acc.openStates.add(neighbor);
+                acc.openSet.add(new OpenEntry(neighbor, tentativeGScore, inflatedFScore(acc, neighbor, tentativeGScore)));
+            }
+        }
+    }
+
+    /**
+     * Moves inconsistent states back to the open set, recomputes f-scores for the current weight
+     * and empties the closed set.
+     */
+    private void rebuildOpenSet(Accumulator acc) {
+        acc.openStates.addAll(acc.inconsistent);
+        acc.inconsistent.clear();
+        acc.closedSet.clear();
+        acc.openSet.clear();
+        for (CS state : acc.openStates) {
+            D gScore = acc.gScore.get(state);
+            acc.openSet.add(new OpenEntry(state, gScore, inflatedFScore(acc, state, gScore)));
+        }
+    }
+
+    private D inflatedFScore(Accumulator acc, CS state, D gScore) {
+        return numHandler.add(gScore, numHandler.multiply(acc.costFunction.getHeuristicCost(state, acc.goal), acc.weight));
+    }
+
+    private CollectivePath<CS> reconstructPath(Accumulator acc) {
+        List<CS> reconstructedPath = new LinkedList<>();
+        CS current = acc.goal;
+        reconstructedPath.add(current);
+
+        while ((current = acc.cameFrom.get(current)) != null) {
+            reconstructedPath.add(0, current);
+        }
+        return ImmutableCollectivePath.from(reconstructedPath);
+    }
+
+    private final class OpenEntry implements Comparable<OpenEntry> {
+
+        private final CS state;
+        private final D gScore;
+        private final D fScore;
+
+        private OpenEntry(CS state, D gScore, D fScore) {
+            this.state = state;
+            this.gScore = gScore;
+            this.fScore = fScore;
+        }
+
+        @Override
+        public int compareTo(OpenEntry other) {
+            int fComparison = fScore.compareTo(other.fScore);
+            return fComparison != 0 ? fComparison : other.gScore.compareTo(gScore);
+        }
+    }
+
+    private class Accumulator {
+
+        private SS stateSpace;
+        private CS start;
+        private CS goal;
+        private PriorityQueue<OpenEntry> openSet;
+        private Set<CS> openStates;
+        private Set<CS> closedSet;
+        private Set<CS> inconsistent;
+        private Map<CS, D> gScore;
+        private Map<CS, CS> cameFrom;
+        private CostFunction<CS, D> costFunction;
+        private CollectiveAStarStats stats;
+        private boolean gatherStats;
+        private long startNanos;
+        private long timeoutNanos;
+        private SearchControl searchControl;
+        private TerminationReason terminationReason;
+        private double weight;
+
+        Accumulator(InputPlan<SS, CS, D> inputPlan, boolean gatherStats, long timeoutNanos,
+                    SearchControl searchControl) {
+            stateSpace = inputPlan.getStateSpace();
+            start = inputPlan.getInitialCollectiveState();
+            goal = inputPlan.getTargetCollectiveState();
+            costFunction = inputPlan.getCostFunction();
+
+            openSet = new PriorityQueue<>();
+            openStates = new HashSet<>();
+            closedSet = new HashSet<>();
+            inconsistent = new HashSet<>();
+            gScore = new HashMap<>();
+            cameFrom = new HashMap<>();
+            stats = new CollectiveAStarStats();
+            this.gatherStats = gatherStats;
+            this.startNanos = ticker.read();
+            this.timeoutNanos = timeoutNanos;
+            this.searchControl = searchControl;
+        }
+    }
+}
@@ -9,5 +9,19 @@ import pl.edu.agh.idziak.asw.model.StateSpace;
  * Created by Tomasz on 03.03.2017.
  */
 public interface CollectiveAStar<SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>> {
-    CollectivePath<CS> calculatePath(InputPlan<SS, CS, D> inputPlan);
+
+    /**
+     * Search which stops when any limit of the given control is exceeded or the control is cancelled, reporting
+     * the reason in the results.
+     */
+    CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats,
+                                             SearchControl searchControl);
+
+    default CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats) {
+        return calculatePath(inputPlan, gatherStats, SearchControl.unlimited());
+    }
+
+    default CollectivePath<CS> calculatePath(InputPlan<SS, CS, D> inputPlan) {
+        return calculatePath(inputPlan, false).getCollectivePath();
+    }
 }
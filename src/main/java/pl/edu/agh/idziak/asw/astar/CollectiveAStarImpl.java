@@ -1,9 +1,11 @@
 package pl.edu.agh.idziak.asw.astar;
 
-import pl.edu.agh.idziak.asw.common.ValueSortedPriorityQueue;
+import pl.edu.agh.idziak.asw.common.IndexedDaryHeap;
+import pl.edu.agh.idziak.asw.common.OpenList;
 import pl.edu.agh.idziak.asw.model.*;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Created by Tomasz on 29.06.2016.
@@ -11,70 +13,96 @@ import java.util.*;
 public class CollectiveAStarImpl<SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>> implements CollectiveAStar<SS, CS, D> {
 
     private AbstractNumberHandler<D> numHandler;
+    private Supplier<OpenList<CS, D>> openListFactory;
 
     public CollectiveAStarImpl(AbstractNumberHandler<D> abstractNumberHandler) {
+        this(abstractNumberHandler, IndexedDaryHeap::new);
+    }
+
+    /**
+     * @param openListFactory creates an empty open list for every search, {@link IndexedDaryHeap} by default
+     */
+    public CollectiveAStarImpl(AbstractNumberHandler<D> abstractNumberHandler, Supplier<OpenList<CS, D>> openListFactory) {
         this.numHandler = abstractNumberHandler;
+        this.openListFactory = openListFactory;
     }
 
-    public CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats) {
+    @Override
+    public CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats,
+                                                    SearchControl searchControl) {
         Accumulator acc = new Accumulator(inputPlan, gatherStats);
 
         acc.gScore.put(acc.start, numHandler.getZero());
-        acc.openSetWithFScore.add(acc.start, acc.costFunction.getHeuristicCost(acc.start, acc.goal));
+        acc.openSetWithFScore.add(acc.start, acc.costFunction.getHeuristicCost(acc.start, acc.goal), numHandler.getZero());
 
-        boolean pathFound = findPath(acc);
+        TerminationReason terminationReason = findPath(acc, searchControl);
 
-        CollectivePath<CS> collectivePath = pathFound ? reconstructPath(acc) : null;
+        CollectivePath<CS> collectivePath =
+                terminationReason == TerminationReason.GOAL_REACHED ? reconstructPath(acc) : null;
 
-        return new CollectiveAStarResults<>(collectivePath, acc.stats);
+        return new CollectiveAStarResults<>(collectivePath, acc.stats, terminationReason);
     }
 
     @Override public CollectivePath<CS> calculatePath(InputPlan<SS, CS, D> inputPlan) {
         return calculatePath(inputPlan, false).getCollectivePath();
     }
 
-    private boolean findPath(Accumulator acc) {
+    private TerminationReason findPath(Accumulator acc, SearchControl searchControl) {
         while (!acc.openSetWithFScore.isEmpty()) {
 
+            TerminationReason limitReason =
+                    searchControl.check(acc.stats.getExpandedNodesCount(), acc.openSetWithFScore.size());
+            if (limitReason != null) {
+                return limitReason;
+            }
+
             if (acc.gatherStats) {
                 acc.stats.logSizeOfOpenSet(acc.openSetWithFScore.size());
             }
 
-            acc.openSetWithFScore.pollFirst();
-            CS current = acc.openSetWithFScore.getFirstKey();
+            CS current = acc.openSetWithFScore.pollFirst();
 
             if (current.equals(acc.goal)) {
-                return true;
+                return TerminationReason.GOAL_REACHED;
             }
 
             acc.closedSet.add(current);
+            acc.stats.countExpandedNode();
 
             iterateNeighbors(acc, current);
         }
-        return false;
+        return TerminationReason.OPEN_SET_EXHAUSTED;
     }
 
     private void iterateNeighbors(Accumulator acc, CS current) {
-        Set<CS> neighborsOfCurrent = acc.stateSpace.getNeighborStatesOf(current);
+        D gScoreOfCurrent = acc.gScore.get(current);
+        D heuristicCostOfCurrent = acc.incrementalCostFunction != null
+                ? acc.costFunction.getHeuristicCost(current, acc.goal)
+                : null;
+        acc.stateSpace.forEachNeighborStateOf(current,
+                neighbor -> visitNeighbor(acc, current, gScoreOfCurrent, heuristicCostOfCurrent, neighbor));
+    }
 
-        for (CS neighbor : neighborsOfCurrent) {
-            if (acc.closedSet.contains(neighbor))
-                continue;
+    private void visitNeighbor(Accumulator acc, CS current, D gScoreOfCurrent, D heuristicCostOfCurrent, CS neighbor) {
+        acc.stats.countGeneratedNode();
 
-            D tentativeGScore = numHandler
-                    .add(acc.gScore.get(current), acc.costFunction.getHeuristicCost(current, neighbor));
+        if (acc.closedSet.contains(neighbor))
+            return;
 
-            if (acc.openSetWithFScore.containsKey(neighbor)
-                    && numHandler.greaterOrEqual(tentativeGScore, acc.gScore.get(neighbor))) {
-                continue;
-            }
+        D tentativeGScore = numHandler.add(gScoreOfCurrent, acc.costFunction.getHeuristicCost(current, neighbor));
 
-            acc.cameFrom.put(neighbor, current);
-            acc.gScore.put(neighbor, tentativeGScore);
-            D heuristicDistNeighborToGoal = acc.costFunction.getHeuristicCost(neighbor, acc.goal);
-            D fScore = numHandler.add(tentativeGScore, heuristicDistNeighborToGoal);
-            acc.openSetWithFScore.add(neighbor, fScore);
+        if (acc.openSetWithFScore.containsKey(neighbor)
+                && numHandler.greaterOrEqual(tentativeGScore, acc.gScore.get(neighbor))) {
+            return;
         }
+
+        acc.cameFrom.put(neighbor, current);
+        acc.gScore.put(neighbor, tentativeGScore);
+        D heuristicDistNeighborToGoal = acc.incrementalCostFunction != null
+                ? acc.incrementalCostFunction.getHeuristicCostOfNeighbor(current, heuristicCostOfCurrent, neighbor, acc.goal)
+                : acc.costFunction.getHeuristicCost(neighbor, acc.goal);
+        D fScore = numHandler.add(tentativeGScore, heuristicDistNeighborToGoal);
+        acc.openSetWithFScore.add(neighbor, fScore, tentativeGScore);
     }
 
     private CollectivePath<CS> reconstructPath(Accumulator acc) {
@@ -93,21 +121,26 @@ public class CollectiveAStarImpl<SS extends StateSpace<CS>, CS extends Collectiv
         private SS stateSpace;
         private CS start;
         private CS goal;
-        private ValueSortedPriorityQueue<CS, D> openSetWithFScore;
+        private OpenList<CS, D> openSetWithFScore;
         private Set<CS> closedSet;
         private Map<CS, D> gScore;
         private Map<CS, CS> cameFrom;
         private CostFunction<CS, D> costFunction;
+        private IncrementalCostFunction<CS, D> incrementalCostFunction;
         private CollectiveAStarStats stats;
         private boolean gatherStats;
 
+        @SuppressWarnings("unchecked")
         Accumulator(InputPlan<SS, CS, D> inputPlan, boolean gatherStats) {
             stateSpace = inputPlan.getStateSpace();
             start = inputPlan.getInitialCollectiveState();
             goal = inputPlan.getTargetCollectiveState();
             costFunction = inputPlan.getCostFunction();
+            if (costFunction instanceof IncrementalCostFunction) {
+                incrementalCostFunction = (IncrementalCostFunction<CS, D>) costFunction;
+            }
 
-            openSetWithFScore = new ValueSortedPriorityQueue<>();
+            openSetWithFScore = openListFactory.get();
             closedSet = new HashSet<>();
             gScore = new HashMap<>();
             cameFrom = new HashMap<>();
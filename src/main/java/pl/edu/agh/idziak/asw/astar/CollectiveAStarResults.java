@@ -9,10 +9,29 @@ import pl.edu.agh.idziak.asw.model.CollectiveState;
 public class CollectiveAStarResults<CS extends CollectiveState<?, ?>> {
     private CollectiveAStarStats statistics;
     private CollectivePath<CS> collectivePath;
+    private Double suboptimalityBound;
+    private TerminationReason terminationReason;
 
     public CollectiveAStarResults(CollectivePath<CS> collectivePath, CollectiveAStarStats statistics) {
+        this(collectivePath, statistics, null, null);
+    }
+
+    public CollectiveAStarResults(CollectivePath<CS> collectivePath, CollectiveAStarStats statistics,
+                                  Double suboptimalityBound) {
+        this(collectivePath, statistics, suboptimalityBound, null);
+    }
+
+    public CollectiveAStarResults(CollectivePath<CS> collectivePath, CollectiveAStarStats statistics,
+                                  TerminationReason terminationReason) {
+        this(collectivePath, statistics, null, terminationReason);
+    }
+
+    public CollectiveAStarResults(CollectivePath<CS> collectivePath, CollectiveAStarStats statistics,
+                                  Double suboptimalityBound, TerminationReason terminationReason) {
         this.statistics = statistics;
         this.collectivePath = collectivePath;
+        this.suboptimalityBound = suboptimalityBound;
+        this.terminationReason = terminationReason;
     }
 
     public CollectiveAStarStats getStatistics() {
@@ -22,4 +41,19 @@ public class CollectiveAStarResults<CS extends CollectiveState<?, ?>> {
     public CollectivePath<CS> getCollectivePath() {
         return collectivePath;
     }
+
+    /**
+     * @return factor by which the cost of the path may exceed the cost of the path found without inflating
+     * the heuristic, or null when the engine does not report it
+     */
+    public Double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    /**
+     * @return reason for which the search stopped, or null when the engine does not report it
+     */
+    public TerminationReason getTerminationReason() {
+        return terminationReason;
+    }
 }
@@ -12,6 +12,10 @@ import static java.util.Comparator.naturalOrder;
 public class CollectiveAStarStats {
 
     private List<Integer> sizeOfOpenSetLog = new LinkedList<>();
+    private long expandedNodesCount;
+    private long generatedNodesCount;
+    private boolean gaveUp;
+    private Comparable<?> closestHeuristicCost;
 
     public List<Integer> getSizeOfOpenSetLog() {
         return sizeOfOpenSetLog;
@@ -25,7 +29,64 @@ public class CollectiveAStarStats {
         return sizeOfOpenSetLog.stream().max(naturalOrder()).orElseThrow(NoSuchElementException::new);
     }
 
-    void logSizeOfOpenSet(int size) {
+    public long getExpandedNodesCount() {
+        return expandedNodesCount;
+    }
+
+    public long getGeneratedNodesCount() {
+        return generatedNodesCount;
+    }
+
+    /**
+     * @return true if the search stopped because of its limits, not because the goal was found or proven unreachable
+     */
+    public boolean hasGivenUp() {
+        return gaveUp;
+    }
+
+    /**
+     * @return lowest heuristic cost to the goal among the reached states, if the search gave up and reported it;
+     * merged statistics keep the cost reported first
+     */
+    public Comparable<?> getClosestHeuristicCost() {
+        return closestHeuristicCost;
+    }
+
+    public void giveUp() {
+        gaveUp = true;
+    }
+
+    /**
+     * @param closestHeuristicCost lowest heuristic cost to the goal among the states reached before giving up
+     */
+    public void giveUp(Comparable<?> closestHeuristicCost) {
+        gaveUp = true;
+        this.closestHeuristicCost = closestHeuristicCost;
+    }
+
+    public void logSizeOfOpenSet(int size) {
         sizeOfOpenSetLog.add(size);
     }
+
+    public void countExpandedNode() {
+        expandedNodesCount++;
+    }
+
+    public void countGeneratedNode() {
+        generatedNodesCount++;
+    }
+
+    public void countGeneratedNodes(int count) {
+        generatedNodesCount += count;
+    }
+
+    public void mergeWith(CollectiveAStarStats stats) {
+        sizeOfOpenSetLog.addAll(stats.sizeOfOpenSetLog);
+        expandedNodesCount += stats.expandedNodesCount;
+        generatedNodesCount += stats.generatedNodesCount;
+        gaveUp |= stats.gaveUp;
+        if (closestHeuristicCost == null) {
+            closestHeuristicCost = stats.closestHeuristicCost;
+        }
+    }
 }
@@ -0,0 +1,238 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import pl.edu.agh.idziak.asw.common.IndexedDaryHeap;
+import pl.edu.agh.idziak.asw.model.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link CollectiveAStarImpl} specialised for double costs. The g and f scores are kept as primitive fields of one
+ * node per reached state, and the open list is a d-ary heap of those nodes ordered like {@link IndexedDaryHeap}, so
+ * it expands the same states in the same order as {@link CollectiveAStarImpl} with its default open list, without
+ * allocating a boxed cost per visit.
+ */
+public class DoubleCollectiveAStar<SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>>
+        implements CollectiveAStar<SS, CS, Double> {
+
+    private static final int ARITY = IndexedDaryHeap.DEFAULT_ARITY;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NOT_QUEUED = -1;
+
+    @Override
+    public CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, Double> inputPlan, boolean gatherStats,
+                                                    SearchControl searchControl) {
+        Accumulator acc = new Accumulator(inputPlan, gatherStats);
+
+        Node<CS> startNode = new Node<>(acc.start);
+        acc.nodes.put(acc.start, startNode);
+        acc.offer(startNode, 0, acc.costFunction.getHeuristicCostAsDouble(acc.start, acc.goal), null);
+
+        Node<CS> goalNode = findPath(acc, searchControl);
+        TerminationReason terminationReason = acc.terminationReason;
+
+        CollectivePath<CS> collectivePath = goalNode != null ? reconstructPath(goalNode) : null;
+
+        return new CollectiveAStarResults<>(collectivePath, acc.stats, terminationReason);
+    }
+
+    private Node<CS> findPath(Accumulator acc, SearchControl searchControl) {
+        while (acc.size > 0) {
+
+            TerminationReason limitReason = searchControl.check(acc.stats.getExpandedNodesCount(), acc.size);
+            if (limitReason != null) {
+                acc.terminationReason = limitReason;
+                return null;
+            }
+
+            if (acc.gatherStats) {
+                acc.stats.logSizeOfOpenSet(acc.size);
+            }
+
+            Node<CS> current = acc.pollFirst();
+
+            if (current.state.equals(acc.goal)) {
+                acc.terminationReason = TerminationReason.GOAL_REACHED;
+                return current;
+            }
+
+            current.closed = true;
+            acc.stats.countExpandedNode();
+
+            iterateNeighbors(acc, current);
+        }
+        acc.terminationReason = TerminationReason.OPEN_SET_EXHAUSTED;
+        return null;
+    }
+
+    private void iterateNeighbors(Accumulator acc, Node<CS> current) {
+        double heuristicCostOfCurrent = acc.costFunction.getHeuristicCostAsDouble(current.state, acc.goal);
+        acc.stateSpace.forEachNeighborStateOf(current.state,
+                neighbor -> visitNeighbor(acc, current, heuristicCostOfCurrent, neighbor));
+    }
+
+    private void visitNeighbor(Accumulator acc, Node<CS> current, double heuristicCostOfCurrent, CS neighbor) {
+        acc.stats.countGeneratedNode();
+
+        Node<CS> node = acc.nodes.get(neighbor);
+        if (node != null && node.closed)
+            return;
+
+        double tentativeGScore = current.g + acc.costFunction.getHeuristicCostAsDouble(current.state, neighbor);
+
+        if (node != null && tentativeGScore >= node.g) {
+            return;
+        }
+        if (node == null) {
+            node = new Node<>(neighbor);
+            acc.nodes.put(neighbor, node);
+        }
+
+        double heuristicDistNeighborToGoal = acc.costFunction.getHeuristicCostOfNeighborAsDouble(
+                current.state, heuristicCostOfCurrent, neighbor, acc.goal);
+        acc.offer(node, tentativeGScore, tentativeGScore + heuristicDistNeighborToGoal, current);
+    }
+
+    private CollectivePath<CS> reconstructPath(Node<CS> goalNode) {
+        List<CS> reconstructedPath = new LinkedList<>();
+        for (Node<CS> node = goalNode; node != null; node = node.parent) {
+            reconstructedPath.add(0, node.state);
+        }
+        return ImmutableCollectivePath.from(reconstructedPath);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <CS> Node<CS>[] newHeap(int capacity) {
+        return new Node[capacity];
+    }
+
+    private static final class Node<CS> {
+
+        private final CS state;
+        private Node<CS> parent;
+        private double g;
+        private double f;
+        private double tieBreaker;
+        private long stamp;
+        private int heapIndex = NOT_QUEUED;
+        private boolean closed;
+
+        private Node(CS state) {
+            this.state = state;
+        }
+    }
+
+    private class Accumulator {
+
+        private SS stateSpace;
+        private CS start;
+        private CS goal;
+        private DoubleCostFunction<CS> costFunction;
+        private Map<CS, Node<CS>> nodes;
+        private Node<CS>[] heap = newHeap(INITIAL_CAPACITY);
+        private int size;
+        private long counter;
+        private TerminationReason terminationReason;
+        private CollectiveAStarStats stats;
+        private boolean gatherStats;
+
+        Accumulator(InputPlan<SS, CS, Double> inputPlan, boolean gatherStats) {
+            stateSpace = inputPlan.getStateSpace();
+            start = inputPlan.getInitialCollectiveState();
+            goal = inputPlan.getTargetCollectiveState();
+            costFunction = DoubleCostFunction.of(inputPlan.getCostFunction());
+
+            nodes = new HashMap<>();
+            stats = new CollectiveAStarStats();
+            this.gatherStats = gatherStats;
+        }
+
+        /**
+         * Records the better path to the node and queues it, or moves it up the heap if its f score dropped.
+         */
+        void offer(Node<CS> node, double g, double f, Node<CS> parent) {
+            node.g = g;
+            node.parent = parent;
+            if (node.heapIndex == NOT_QUEUED) {
+                if (size == heap.length) {
+                    heap = Arrays.copyOf(heap, size * 2);
+                }
+                setPriority(node, g, f);
+                siftUp(size++, node);
+            } else if (f < node.f) {
+                setPriority(node, g, f);
+                siftUp(node.heapIndex, node);
+            }
+        }
+
+        private void setPriority(Node<CS> node, double g, double f) {
+            node.f = f;
+            node.tieBreaker = g;
+            node.stamp = counter++;
+        }
+
+        Node<CS> pollFirst() {
+            Node<CS> first = heap[0];
+            int last = --size;
+            if (last > 0) {
+                siftDown(0, heap[last]);
+            }
+            heap[last] = null;
+            first.heapIndex = NOT_QUEUED;
+            return first;
+        }
+
+        private void siftUp(int position, Node<CS> node) {
+            while (position > 0) {
+                int parent = (position - 1) / ARITY;
+                if (!precedes(node, heap[parent])) {
+                    break;
+                }
+                place(position, heap[parent]);
+                position = parent;
+            }
+            place(position, node);
+        }
+
+        private void siftDown(int position, Node<CS> node) {
+            while (true) {
+                int firstChild = position * ARITY + 1;
+                if (firstChild >= size) {
+                    break;
+                }
+                int best = firstChild;
+                int lastChild = Math.min(firstChild + ARITY, size);
+                for (int child = firstChild + 1; child < lastChild; child++) {
+                    if (precedes(heap[child], heap[best])) {
+                        best = child;
+                    }
+                }
+                if (!precedes(heap[best], node)) {
+                    break;
+                }
+                place(position, heap[best]);
+                position = best;
+            }
+            place(position, node);
+        }
+
+        private void place(int position, Node<CS> node) {
+            heap[position] = node;
+            node.heapIndex = position;
+        }
+
+        /**
+         * Lower f first, then higher g, then the node queued last, as in {@link IndexedDaryHeap}.
+         */
+        private boolean precedes(Node<CS> node, Node<CS> other) {
+            int comparison = Double.compare(node.f, other.f);
+            if (comparison == 0) {
+                comparison = Double.compare(other.tieBreaker, node.tieBreaker);
+            }
+            return comparison < 0 || comparison == 0 && node.stamp > other.stamp;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.idziak.asw.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Independence detection front end for a collective A*. Every entity is planned alone first; whenever the paths
+ * of two groups of entities conflict, the groups are merged and planned jointly. The search effort is then
+ * exponential in the size of the largest group of interacting entities instead of the total number of entities.
+ * <p>
+ * Every group search gets the same {@link SearchControl}, so the deadline and cancellation hold for the whole search
+ * while the limits of expansions and of the open set apply to each group search.
+ */
+public class IndependenceDetectionAStar<SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>>
+        implements CollectiveAStar<SS, CS, D> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndependenceDetectionAStar.class);
+
+    private final CollectiveAStar<SS, CS, D> groupSearch;
+    private final InputPlanDecomposer<SS, CS, D> decomposer;
+
+    public IndependenceDetectionAStar(CollectiveAStar<SS, CS, D> groupSearch, InputPlanDecomposer<SS, CS, D> decomposer) {
+        this.groupSearch = groupSearch;
+        this.decomposer = decomposer;
+    }
+
+    @Override
+    public CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats,
+                                                    SearchControl searchControl) {
+        CollectiveAStarStats stats = new CollectiveAStarStats();
+        List<Group> groups = new ArrayList<>();
+
+        for (Object entity : inputPlan.getEntities()) {
+            Group group = planGroup(inputPlan, ImmutableSet.of(entity), gatherStats, searchControl, stats);
+            if (group.path == null) {
+                return new CollectiveAStarResults<>(null, stats, group.terminationReason);
+            }
+            groups.add(group);
+        }
+
+        Conflict conflict;
+        while ((conflict = findConflict(groups)) != null) {
+            ImmutableSet<Object> mergedEntities = ImmutableSet.builder()
+                                                              .addAll(conflict.first.entities)
+                                                              .addAll(conflict.second.entities)
+                                                              .build();
+            LOG.debug("Merging groups {} and {}", conflict.first.entities, conflict.second.entities);
+
+            Group merged = planGroup(inputPlan, mergedEntities, gatherStats, searchControl, stats);
+            if (merged.path == null) {
+                return new CollectiveAStarResults<>(null, stats, merged.terminationReason);
+            }
+            groups.remove(conflict.first);
+            groups.remove(conflict.second);
+            groups.add(merged);
+        }
+
+        LOG.debug("Planned {} independent groups", groups.size());
+        return new CollectiveAStarResults<>(combinePaths(groups), stats, TerminationReason.GOAL_REACHED);
+    }
+
+    private Group planGroup(InputPlan<SS, CS, D> inputPlan, Set<?> entities, boolean gatherStats,
+                            SearchControl searchControl, CollectiveAStarStats stats) {
+        CollectiveAStarResults<CS> results =
+                groupSearch.calculatePath(decomposer.restrictTo(inputPlan, entities), gatherStats, searchControl);
+        stats.mergeWith(results.getStatistics());
+        return new Group(entities, results.getCollectivePath(), results.getTerminationReason());
+    }
+
+    private Conflict findConflict(List<Group> groups) {
+        for (int i = 0; i < groups.size(); i++) {
+            for (int j = i + 1; j < groups.size(); j++) {
+                if (pathsConflict(groups.get(i), groups.get(j))) {
+                    return new Conflict(groups.get(i), groups.get(j));
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean pathsConflict(Group first, Group second) {
+        int length = Math.max(first.length(), second.length());
+
+        for (int t = 0; t < length; t++) {
+            CS firstState = first.stateAt(t);
+            CS secondState = second.stateAt(t);
+
+            for (Object firstEntity : first.entities) {
+                Object firstEntityState = firstState.getStateForEntity(firstEntity);
+
+                for (Object secondEntity : second.entities) {
+                    Object secondEntityState = secondState.getStateForEntity(secondEntity);
+
+                    if (firstEntityState.equals(secondEntityState)) {
+                        return true;
+                    }
+                    if (t + 1 < length
+                            && firstEntityState.equals(second.stateAt(t + 1).getStateForEntity(secondEntity))
+                            && secondEntityState.equals(first.stateAt(t + 1).getStateForEntity(firstEntity))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private CollectivePath<CS> combinePaths(List<Group> groups) {
+        int length = groups.stream().mapToInt(Group::length).max().orElse(0);
+        List<CS> combinedPath = new ArrayList<>(length);
+
+        for (int t = 0; t < length; t++) {
+            List<CS> groupStates = new ArrayList<>(groups.size());
+            for (Group group : groups) {
+                groupStates.add(group.stateAt(t));
+            }
+            combinedPath.add(decomposer.combine(groupStates));
+        }
+        return ImmutableCollectivePath.from(combinedPath);
+    }
+
+    private class Group {
+
+        private final Set<?> entities;
+        private final List<CS> path;
+        private final TerminationReason terminationReason;
+
+        private Group(Set<?> entities, CollectivePath<CS> collectivePath, TerminationReason terminationReason) {
+            this.entities = entities;
+            this.path = collectivePath != null ? collectivePath.get() : null;
+            this.terminationReason = terminationReason;
+        }
+
+        private int length() {
+            return path.size();
+        }
+
+        /**
+         * Entities stay at their targets after the end of the group path.
+         */
+        private CS stateAt(int t) {
+            return path.get(Math.min(t, path.size() - 1));
+        }
+    }
+
+    private class Conflict {
+
+        private final Group first;
+        private final Group second;
+
+        private Conflict(Group first, Group second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+}
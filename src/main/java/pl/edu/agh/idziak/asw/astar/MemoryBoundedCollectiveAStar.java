@@ -0,0 +1,299 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.idziak.asw.common.IndexedDaryHeap;
+import pl.edu.agh.idziak.asw.common.OpenList;
+import pl.edu.agh.idziak.asw.model.*;
+
+import java.util.*;
+
+/**
+ * Collective A* with a hard limit on the number of stored states. The search starts as a regular A*. As soon as
+ * storing the g-score of a newly reached state would exceed the limit, all tables are dropped and the search
+ * continues as IDA*, which keeps only the current path in memory and regenerates states in every iteration instead.
+ * The first threshold of IDA* is the f-score of the state being expanded, the lowest in the open set of A*, so the
+ * iterations A* has already covered are skipped. The depth first search keeps its path on an explicit stack, so long paths do not exhaust the call stack.
+ * <p>
+ * IDA* is stopped after a maximum number of expansions, {@value #DEFAULT_MAX_DEEPENING_EXPANSIONS} unless given.
+ * The search then stops with {@link TerminationReason#EXPANSION_LIMIT_REACHED} and reports that it gave up, along
+ * with the lowest heuristic cost to the goal among the states it reached.
+ * <p>
+ * The limits of a {@link SearchControl} are checked at every expansion of both phases; in IDA* the open set size
+ * is the length of the current path.
+ */
+public class MemoryBoundedCollectiveAStar<SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>>
+        implements CollectiveAStar<SS, CS, D> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MemoryBoundedCollectiveAStar.class);
+
+    public static final long DEFAULT_MAX_DEEPENING_EXPANSIONS = 1_000_000;
+
+    private final AbstractNumberHandler<D> numHandler;
+    private final int maxStoredStates;
+    private final long maxDeepeningExpansions;
+
+    public MemoryBoundedCollectiveAStar(AbstractNumberHandler<D> abstractNumberHandler, int maxStoredStates) {
+        this(abstractNumberHandler, maxStoredStates, DEFAULT_MAX_DEEPENING_EXPANSIONS);
+    }
+
+    /**
+     * @param maxStoredStates        maximum number of states kept by A* before switching to IDA*
+     * @param maxDeepeningExpansions number of IDA* expansions after which the search gives up
+     */
+    public MemoryBoundedCollectiveAStar(AbstractNumberHandler<D> abstractNumberHandler, int maxStoredStates,
+                                        long maxDeepeningExpansions) {
+        Preconditions.checkArgument(maxStoredStates > 0, "Positive number of stored states required");
+        Preconditions.checkArgument(maxDeepeningExpansions > 0, "Positive number of expansions required");
+        this.numHandler = abstractNumberHandler;
+        this.maxStoredStates = maxStoredStates;
+        this.maxDeepeningExpansions = maxDeepeningExpansions;
+    }
+
+    @Override
+    public CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats,
+                                                    SearchControl searchControl) {
+        Accumulator acc = new Accumulator(inputPlan, gatherStats, searchControl);
+
+        CollectivePath<CS> collectivePath = findPathWithAStar(acc);
+        if (collectivePath == null && acc.deepeningThreshold != null) {
+            LOG.debug("Limit of {} stored states exceeded, switching to iterative deepening", maxStoredStates);
+            collectivePath = findPathWithIterativeDeepening(acc);
+        }
+        return new CollectiveAStarResults<>(collectivePath, acc.stats, terminationReasonOf(acc, collectivePath));
+    }
+
+    /**
+     * @return reason to stop, {@link TerminationReason#EXPANSION_LIMIT_REACHED} if the search gave up after the
+     * maximum number of IDA* expansions
+     */
+    private TerminationReason terminationReasonOf(Accumulator acc, CollectivePath<CS> collectivePath) {
+        if (collectivePath != null) {
+            return TerminationReason.GOAL_REACHED;
+        }
+        if (acc.terminationReason != null) {
+            return acc.terminationReason;
+        }
+        return acc.stats.hasGivenUp()
+                ? TerminationReason.EXPANSION_LIMIT_REACHED
+                : TerminationReason.OPEN_SET_EXHAUSTED;
+    }
+
+    /**
+     * @return true if a limit of the search control has been exceeded, which is then recorded as the reason to stop
+     */
+    private boolean isStopped(Accumulator acc, int openSetSize) {
+        acc.terminationReason = acc.searchControl.check(acc.stats.getExpandedNodesCount(), openSetSize);
+        return acc.terminationReason != null;
+    }
+
+    /**
+     * @return path to the goal, or null if there is none or the limit of stored states was reached, in which case
+     * the f-score of the state being expanded becomes the first threshold of IDA*
+     */
+    private CollectivePath<CS> findPathWithAStar(Accumulator acc) {
+        OpenList<CS, D> openSetWithFScore = new IndexedDaryHeap<>();
+        Set<CS> closedSet = new HashSet<>();
+        Map<CS, D> gScore = new HashMap<>();
+        Map<CS, CS> cameFrom = new HashMap<>();
+
+        gScore.put(acc.start, numHandler.getZero());
+        openSetWithFScore.add(acc.start, heuristicCostToGoal(acc, acc.start), numHandler.getZero());
+
+        while (!openSetWithFScore.isEmpty()) {
+            if (isStopped(acc, openSetWithFScore.size())) {
+                return null;
+            }
+            if (acc.gatherStats) {
+                acc.stats.logSizeOfOpenSet(openSetWithFScore.size());
+            }
+
+            CS current = openSetWithFScore.pollFirst();
+
+            if (current.equals(acc.goal)) {
+                return reconstructPath(cameFrom, current);
+            }
+
+            closedSet.add(current);
+            acc.stats.countExpandedNode();
+
+            Set<CS> neighborsOfCurrent = acc.stateSpace.getNeighborStatesOf(current);
+            acc.stats.countGeneratedNodes(neighborsOfCurrent.size());
+
+            for (CS neighbor : neighborsOfCurrent) {
+                if (closedSet.contains(neighbor))
+                    continue;
+
+                D tentativeGScore = numHandler.add(gScore.get(current), acc.costFunction.getHeuristicCost(current, neighbor));
+
+                if (openSetWithFScore.containsKey(neighbor) && numHandler.greaterOrEqual(tentativeGScore, gScore.get(neighbor))) {
+                    continue;
+                }
+
+                if (gScore.size() >= maxStoredStates && !gScore.containsKey(neighbor)) {
+                    acc.deepeningThreshold = numHandler.add(gScore.get(current), heuristicCostToGoal(acc, current));
+                    return null;
+                }
+
+                cameFrom.put(neighbor, current);
+                gScore.put(neighbor, tentativeGScore);
+                openSetWithFScore.add(neighbor, numHandler.add(tentativeGScore, heuristicCostToGoal(acc, neighbor)),
+                        tentativeGScore);
+            }
+        }
+        return null;
+    }
+
+    private CollectivePath<CS> findPathWithIterativeDeepening(Accumulator acc) {
+        D threshold = acc.deepeningThreshold;
+
+        while (threshold != null) {
+            LOG.debug("Iterative deepening with threshold {}", threshold);
+            acc.nextThreshold = null;
+
+            CollectivePath<CS> collectivePath = searchWithinThreshold(acc, threshold);
+            if (collectivePath != null) {
+                return collectivePath;
+            }
+            if (acc.stats.hasGivenUp()) {
+                LOG.debug("Gave up after {} expansions", acc.deepeningExpansions);
+                return null;
+            }
+            if (acc.terminationReason != null) {
+                return null;
+            }
+            threshold = acc.nextThreshold;
+        }
+        return null;
+    }
+
+    /**
+     * Depth first search from the start bounded by the f-score threshold. The stack holds the states of the current
+     * path together with their unvisited neighbors.
+     *
+     * @return path to the goal, or null if there is none within the threshold or the search gave up
+     */
+    private CollectivePath<CS> searchWithinThreshold(Accumulator acc, D threshold) {
+        if (acc.start.equals(acc.goal)) {
+            return ImmutableCollectivePath.from(Collections.singletonList(acc.start));
+        }
+        Deque<Frame> stack = new ArrayDeque<>();
+        Set<CS> pathStates = new HashSet<>();
+        stack.push(expand(acc, acc.start, numHandler.getZero()));
+        pathStates.add(acc.start);
+
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if (!frame.neighbors.hasNext()) {
+                stack.pop();
+                pathStates.remove(frame.state);
+                continue;
+            }
+            CS neighbor = frame.neighbors.next();
+            if (pathStates.contains(neighbor))
+                continue;
+
+            D neighborGScore = numHandler.add(frame.gScore, acc.costFunction.getHeuristicCost(frame.state, neighbor));
+            D fScore = numHandler.add(neighborGScore, heuristicCostToGoal(acc, neighbor));
+
+            if (numHandler.lessThan(threshold, fScore)) {
+                if (acc.nextThreshold == null || numHandler.lessThan(fScore, acc.nextThreshold)) {
+                    acc.nextThreshold = fScore;
+                }
+                continue;
+            }
+            if (neighbor.equals(acc.goal)) {
+                return pathTo(stack, neighbor);
+            }
+            if (acc.deepeningExpansions++ >= maxDeepeningExpansions) {
+                acc.stats.giveUp(acc.closestHeuristicCost);
+                return null;
+            }
+            if (isStopped(acc, stack.size())) {
+                return null;
+            }
+            stack.push(expand(acc, neighbor, neighborGScore));
+            pathStates.add(neighbor);
+        }
+        return null;
+    }
+
+    private Frame expand(Accumulator acc, CS state, D gScore) {
+        acc.stats.countExpandedNode();
+        Set<CS> neighbors = acc.stateSpace.getNeighborStatesOf(state);
+        acc.stats.countGeneratedNodes(neighbors.size());
+        return new Frame(state, gScore, neighbors.iterator());
+    }
+
+    private CollectivePath<CS> pathTo(Deque<Frame> stack, CS goal) {
+        List<CS> path = new ArrayList<>(stack.size() + 1);
+        for (Iterator<Frame> it = stack.descendingIterator(); it.hasNext(); ) {
+            path.add(it.next().state);
+        }
+        path.add(goal);
+        return ImmutableCollectivePath.from(path);
+    }
+
+    private D heuristicCostToGoal(Accumulator acc, CS state) {
+        D heuristicCost = acc.costFunction.getHeuristicCost(state, acc.goal);
+        if (acc.closestHeuristicCost == null || numHandler.lessThan(heuristicCost, acc.closestHeuristicCost)) {
+            acc.closestHeuristicCost = heuristicCost;
+        }
+        return heuristicCost;
+    }
+
+    private CollectivePath<CS> reconstructPath(Map<CS, CS> cameFrom, CS goal) {
+        List<CS> reconstructedPath = new LinkedList<>();
+        CS current = goal;
+        reconstructedPath.add(current);
+
+        while ((current = cameFrom.get(current)) != null) {
+            reconstructedPath.add(0, current);
+        }
+        return ImmutableCollectivePath.from(reconstructedPath);
+    }
+
+    /**
+     * State on the current IDA* path with the neighbors not tried from it yet.
+     */
+    private final class Frame {
+
+        private final CS state;
+        private final D gScore;
+        private final Iterator<CS> neighbors;
+
+        private Frame(CS state, D gScore, Iterator<CS> neighbors) {
+            this.state = state;
+            this.gScore = gScore;
+            this.neighbors = neighbors;
+        }
+    }
+
+    private class Accumulator {
+
+        private SS stateSpace;
+        private CS start;
+        private CS goal;
+        private CostFunction<CS, D> costFunction;
+        private CollectiveAStarStats stats;
+        private boolean gatherStats;
+        private SearchControl searchControl;
+        private TerminationReason terminationReason;
+        private D closestHeuristicCost;
+
+        private D deepeningThreshold;
+        private D nextThreshold;
+        private long deepeningExpansions;
+
+        Accumulator(InputPlan<SS, CS, D> inputPlan, boolean gatherStats, SearchControl searchControl) {
+            stateSpace = inputPlan.getStateSpace();
+            start = inputPlan.getInitialCollectiveState();
+            goal = inputPlan.getTargetCollectiveState();
+            costFunction = inputPlan.getCostFunction();
+            stats = new CollectiveAStarStats();
+            this.gatherStats = gatherStats;
+            this.searchControl = searchControl;
+        }
+    }
+}
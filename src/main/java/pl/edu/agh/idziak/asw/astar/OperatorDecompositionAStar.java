@@ -0,0 +1,201 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import com.google.common.collect.ImmutableList;
+import pl.edu.agh.idziak.asw.common.IndexedDaryHeap;
+import pl.edu.agh.idziak.asw.common.OpenList;
+import pl.edu.agh.idziak.asw.model.*;
+
+import java.util.*;
+
+/**
+ * Collective A* with operator decomposition. Instead of expanding a collective state into the cartesian product
+ * of all entity moves, every expansion moves a single entity, in the order of {@link InputPlan#getEntities()}.
+ * After all entities have been moved the search is back at a standard collective state. The branching factor
+ * is therefore bounded by the number of moves of one entity, while the cost of a full step stays the sum of
+ * per-entity costs. Nodes are queued in an {@link IndexedDaryHeap}, so a queued node reached with a lower g-score
+ * has its f-score lowered, and of nodes with equal f-scores the one with the highest g-score is expanded first.
+ */
+public class OperatorDecompositionAStar<SS extends DecomposableStateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>>
+        implements CollectiveAStar<SS, CS, D> {
+
+    private AbstractNumberHandler<D> numHandler;
+
+    public OperatorDecompositionAStar(AbstractNumberHandler<D> abstractNumberHandler) {
+        this.numHandler = abstractNumberHandler;
+    }
+
+    @Override
+    public CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats,
+                                                    SearchControl searchControl) {
+        Accumulator acc = new Accumulator(inputPlan, gatherStats);
+
+        Node start = new Node(acc.start, acc.start, 0);
+        acc.gScore.put(start, numHandler.getZero());
+        acc.openSetWithFScore.add(start, acc.costFunction.getHeuristicCost(acc.start, acc.goal), numHandler.getZero());
+
+        Node goal = findPath(acc, searchControl);
+
+        CollectivePath<CS> collectivePath = goal != null ? reconstructPath(acc, goal) : null;
+
+        return new CollectiveAStarResults<>(collectivePath, acc.stats, acc.terminationReason);
+    }
+
+    private Node findPath(Accumulator acc, SearchControl searchControl) {
+        while (!acc.openSetWithFScore.isEmpty()) {
+
+            TerminationReason limitReason =
+                    searchControl.check(acc.stats.getExpandedNodesCount(), acc.openSetWithFScore.size());
+            if (limitReason != null) {
+                acc.terminationReason = limitReason;
+                return null;
+            }
+
+            if (acc.gatherStats) {
+                acc.stats.logSizeOfOpenSet(acc.openSetWithFScore.size());
+            }
+
+            Node current = acc.openSetWithFScore.pollFirst();
+
+            if (current.isStandard() && current.state.equals(acc.goal)) {
+                acc.terminationReason = TerminationReason.GOAL_REACHED;
+                return current;
+            }
+
+            acc.closedSet.add(current);
+            acc.stats.countExpandedNode();
+
+            iterateSuccessors(acc, current);
+        }
+        acc.terminationReason = TerminationReason.OPEN_SET_EXHAUSTED;
+        return null;
+    }
+
+    private void iterateSuccessors(Accumulator acc, Node current) {
+        Object entity = acc.entities.get(current.assignedEntities);
+        List<?> assignedEntities = acc.entities.subList(0, current.assignedEntities);
+
+        Set<CS> moves = acc.stateSpace.getEntityMovesOf(current.state, current.baseState, entity, assignedEntities);
+        acc.stats.countGeneratedNodes(moves.size());
+
+        for (CS move : moves) {
+            Node successor;
+            if (current.assignedEntities + 1 < acc.entities.size()) {
+                successor = new Node(move, current.baseState, current.assignedEntities + 1);
+            } else if (!move.equals(current.baseState)) {
+                successor = new Node(move, move, 0);
+            } else {
+                continue;
+            }
+
+            if (acc.closedSet.contains(successor))
+                continue;
+
+            D tentativeGScore = numHandler.add(acc.gScore.get(current),
+                    acc.costFunction.getEntityHeuristicCost(entity, current.state, move));
+
+            if (acc.openSetWithFScore.containsKey(successor)
+                    && numHandler.greaterOrEqual(tentativeGScore, acc.gScore.get(successor))) {
+                continue;
+            }
+
+            acc.cameFrom.put(successor, current);
+            acc.gScore.put(successor, tentativeGScore);
+            D heuristicDistSuccessorToGoal = acc.costFunction.getHeuristicCost(move, acc.goal);
+            acc.openSetWithFScore.add(successor, numHandler.add(tentativeGScore, heuristicDistSuccessorToGoal),
+                    tentativeGScore);
+        }
+    }
+
+    private CollectivePath<CS> reconstructPath(Accumulator acc, Node goal) {
+        List<CS> reconstructedPath = new LinkedList<>();
+        Node current = goal;
+        reconstructedPath.add(current.state);
+
+        while ((current = acc.cameFrom.get(current)) != null) {
+            if (current.isStandard()) {
+                reconstructedPath.add(0, current.state);
+            }
+        }
+        return ImmutableCollectivePath.from(reconstructedPath);
+    }
+
+    /**
+     * Search node: a standard collective state when no entity has been assigned in the current step,
+     * an intermediate state otherwise.
+     */
+    private final class Node {
+
+        private final CS state;
+        private final CS baseState;
+        private final int assignedEntities;
+        private final int hashCode;
+
+        private Node(CS state, CS baseState, int assignedEntities) {
+            this.state = state;
+            this.baseState = baseState;
+            this.assignedEntities = assignedEntities;
+            this.hashCode = isStandard()
+                    ? state.hashCode()
+                    : 31 * (31 * state.hashCode() + baseState.hashCode()) + assignedEntities;
+        }
+
+        private boolean isStandard() {
+            return assignedEntities == 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            OperatorDecompositionAStar<?, ?, ?>.Node node = (OperatorDecompositionAStar<?, ?, ?>.Node) o;
+            return hashCode == node.hashCode
+                    && assignedEntities == node.assignedEntities
+                    && state.equals(node.state)
+                    && (isStandard() || baseState.equals(node.baseState));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return isStandard() ? state.toString() : state + "@" + assignedEntities;
+        }
+    }
+
+    private class Accumulator {
+
+        private SS stateSpace;
+        private CS start;
+        private CS goal;
+        private List<?> entities;
+        private OpenList<Node, D> openSetWithFScore;
+        private Set<Node> closedSet;
+        private Map<Node, D> gScore;
+        private Map<Node, Node> cameFrom;
+        private DecomposableCostFunction<CS, D> costFunction;
+        private TerminationReason terminationReason;
+        private CollectiveAStarStats stats;
+        private boolean gatherStats;
+
+        Accumulator(InputPlan<SS, CS, D> inputPlan, boolean gatherStats) {
+            stateSpace = inputPlan.getStateSpace();
+            start = inputPlan.getInitialCollectiveState();
+            goal = inputPlan.getTargetCollectiveState();
+            entities = ImmutableList.copyOf(inputPlan.getEntities());
+            if (!(inputPlan.getCostFunction() instanceof DecomposableCostFunction)) {
+                throw new IllegalArgumentException("Operator decomposition requires a decomposable cost function");
+            }
+            costFunction = (DecomposableCostFunction<CS, D>) inputPlan.getCostFunction();
+
+            openSetWithFScore = new IndexedDaryHeap<>();
+            closedSet = new HashSet<>();
+            gScore = new HashMap<>();
+            cameFrom = new HashMap<>();
+            stats = new CollectiveAStarStats();
+            this.gatherStats = gatherStats;
+        }
+    }
+}
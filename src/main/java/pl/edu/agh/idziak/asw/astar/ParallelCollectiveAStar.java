@@ -0,0 +1,386 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import pl.edu.agh.idziak.asw.model.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hash distributed collective A* (HDA*). Every collective state is owned by one search thread, chosen by
+ * the hash of the state. Each thread keeps its own open set, g-scores and parents for the states it owns
+ * and sends generated states owned by other threads through lock-free message queues.
+ * <p>
+ * The search ends when no thread is busy and no message is in flight. Both are tracked with a single counter
+ * of busy threads plus undelivered messages, which can only reach zero once no further work can appear.
+ * The best goal found by then is returned; states whose f-score is not lower than its cost are pruned.
+ * A thread with an empty inbox and open set parks until a message is sent to it or the search ends.
+ * The limits of a {@link SearchControl} apply to the expansions of all threads together; once one is exceeded every
+ * thread stops and no path is returned.
+ * <p>
+ * One worker runs in the calling thread and the others in an executor, by default a pool of daemon threads shared
+ * by all searches.
+ */
+public class ParallelCollectiveAStar<SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>>
+        implements CollectiveAStar<SS, CS, D> {
+
+    private final AbstractNumberHandler<D> numHandler;
+    private final int threadCount;
+    private final Executor executor;
+
+    public ParallelCollectiveAStar(AbstractNumberHandler<D> abstractNumberHandler) {
+        this(abstractNumberHandler, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelCollectiveAStar(AbstractNumberHandler<D> abstractNumberHandler, int threadCount) {
+        this(abstractNumberHandler, threadCount, SharedExecutor.INSTANCE);
+    }
+
+    /**
+     * @param executor runs all workers but one at the same time, since they wait for each other's messages; an
+     *                 executor with fewer free threads stalls the search
+     */
+    public ParallelCollectiveAStar(AbstractNumberHandler<D> abstractNumberHandler, int threadCount,
+                                   Executor executor) {
+        Preconditions.checkArgument(threadCount > 0, "Positive number of threads required");
+        this.numHandler = abstractNumberHandler;
+        this.threadCount = threadCount;
+        this.executor = Preconditions.checkNotNull(executor);
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    @Override
+    public CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats,
+                                                    SearchControl searchControl) {
+        Search search = new Search(inputPlan, gatherStats, searchControl);
+
+        search.send(new Message<>(search.start, numHandler.getZero(), null));
+        search.run();
+
+        CollectiveAStarStats stats = new CollectiveAStarStats();
+        for (Worker worker : search.workers) {
+            stats.mergeWith(worker.stats);
+        }
+
+        TerminationReason terminationReason = search.limitReason.get();
+        if (terminationReason != null) {
+            return new CollectiveAStarResults<>(null, stats, terminationReason);
+        }
+        if (search.bestGoal == null) {
+            return new CollectiveAStarResults<>(null, stats, TerminationReason.OPEN_SET_EXHAUSTED);
+        }
+        return new CollectiveAStarResults<>(reconstructPath(search), stats, TerminationReason.GOAL_REACHED);
+    }
+
+    private CollectivePath<CS> reconstructPath(Search search) {
+        List<CS> reconstructedPath = new LinkedList<>();
+        CS current = search.bestGoal;
+        reconstructedPath.add(current);
+
+        while ((current = search.ownerOf(current).cameFrom.get(current)) != null) {
+            reconstructedPath.add(0, current);
+        }
+        return ImmutableCollectivePath.from(reconstructedPath);
+    }
+
+    private static final class Message<CS, D> {
+
+        private final CS state;
+        private final D gScore;
+        private final CS parent;
+
+        private Message(CS state, D gScore, CS parent) {
+            this.state = state;
+            this.gScore = gScore;
+            this.parent = parent;
+        }
+    }
+
+    private static final class OpenEntry<CS, D extends Comparable<D>> {
+
+        private final CS state;
+        private final D gScore;
+        private final D fScore;
+
+        private OpenEntry(CS state, D gScore, D fScore) {
+            this.state = state;
+            this.gScore = gScore;
+            this.fScore = fScore;
+        }
+    }
+
+    private class Search {
+
+        private final SS stateSpace;
+        private final CS start;
+        private final CS goal;
+        private final CostFunction<CS, D> costFunction;
+        private final SearchControl searchControl;
+        private final List<Worker> workers;
+
+        /**
+         * Busy workers plus messages sent but not yet received.
+         */
+        private final AtomicLong pendingWork = new AtomicLong(threadCount);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicReference<TerminationReason> limitReason = new AtomicReference<>();
+        private final AtomicLong expansions = new AtomicLong();
+        private final CountDownLatch finished = new CountDownLatch(threadCount);
+
+        private volatile D bestCost;
+        private CS bestGoal;
+
+        private Search(InputPlan<SS, CS, D> inputPlan, boolean gatherStats, SearchControl searchControl) {
+            stateSpace = inputPlan.getStateSpace();
+            start = inputPlan.getInitialCollectiveState();
+            goal = inputPlan.getTargetCollectiveState();
+            costFunction = inputPlan.getCostFunction();
+            this.searchControl = searchControl;
+            workers = new ArrayList<>(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                workers.add(new Worker(this, gatherStats));
+            }
+        }
+
+        private Worker ownerOf(CS state) {
+            int hash = state.hashCode() * 0x9E3779B9;
+            return workers.get(Math.floorMod(hash ^ (hash >>> 16), threadCount));
+        }
+
+        private void send(Message<CS, D> message) {
+            pendingWork.incrementAndGet();
+            Worker owner = ownerOf(message.state);
+            owner.inbox.add(message);
+            if (owner.waiting) {
+                LockSupport.unpark(owner.thread);
+            }
+        }
+
+        private void fail(Throwable throwable) {
+            failure.compareAndSet(null, throwable);
+            wakeAll();
+        }
+
+        private void stop(TerminationReason reason) {
+            limitReason.compareAndSet(null, reason);
+            wakeAll();
+        }
+
+        private boolean isStopped() {
+            return failure.get() != null || limitReason.get() != null;
+        }
+
+        private void wakeAll() {
+            for (Worker worker : workers) {
+                if (worker.waiting) {
+                    LockSupport.unpark(worker.thread);
+                }
+            }
+        }
+
+        private boolean isPromising(D fScore) {
+            D cost = bestCost;
+            return cost == null || numHandler.lessThan(fScore, cost);
+        }
+
+        private synchronized void offerGoal(CS state, D gScore) {
+            if (bestCost == null || numHandler.lessThan(gScore, bestCost)) {
+                bestGoal = state;
+                bestCost = gScore;
+            }
+        }
+
+        private void run() {
+            for (Worker worker : workers.subList(1, threadCount)) {
+                try {
+                    executor.execute(worker);
+                } catch (RejectedExecutionException e) {
+                    fail(e);
+                    finished.countDown();
+                }
+            }
+            workers.get(0).run();
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                fail(e);
+                Uninterruptibles.awaitUninterruptibly(finished);
+                Thread.currentThread().interrupt();
+            }
+            Throwable throwable = failure.get();
+            if (throwable != null) {
+                throw new IllegalStateException("Parallel search failed", throwable);
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        private final Search search;
+        private final Queue<Message<CS, D>> inbox = new ConcurrentLinkedQueue<>();
+        private final PriorityQueue<OpenEntry<CS, D>> openSet;
+        private final Map<CS, D> gScore = new HashMap<>();
+        private final Map<CS, CS> cameFrom = new HashMap<>();
+        private final CollectiveAStarStats stats = new CollectiveAStarStats();
+        private final boolean gatherStats;
+        private Thread thread;
+        /**
+         * Set while the worker may park; written after {@link #thread}, so a sender seeing it set can wake the
+         * worker.
+         */
+        private volatile boolean waiting;
+
+        private Worker(Search search, boolean gatherStats) {
+            this.search = search;
+            this.gatherStats = gatherStats;
+            openSet = new PriorityQueue<>((o1, o2) -> {
+                int fComparison = o1.fScore.compareTo(o2.fScore);
+                return fComparison != 0 ? fComparison : o2.gScore.compareTo(o1.gScore);
+            });
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            try {
+                search();
+            } catch (Throwable e) {
+                search.fail(e);
+            } finally {
+                waiting = false;
+                search.finished.countDown();
+            }
+        }
+
+        private void search() {
+            boolean busy = true;
+
+            while (!search.isStopped()) {
+                if (!busy) {
+                    if (search.pendingWork.get() == 0) {
+                        return;
+                    }
+                    if (inbox.isEmpty()) {
+                        awaitMessage();
+                        continue;
+                    }
+                    // the message waiting in the inbox is still counted, so the counter cannot drop to zero meanwhile
+                    busy = true;
+                    search.pendingWork.incrementAndGet();
+                }
+
+                Message<CS, D> message;
+                while ((message = inbox.poll()) != null) {
+                    relax(message.state, message.gScore, message.parent);
+                    search.pendingWork.decrementAndGet();
+                }
+
+                OpenEntry<CS, D> entry = pollPromisingEntry();
+                if (entry != null) {
+                    expand(entry);
+                    continue;
+                }
+
+                busy = false;
+                if (search.pendingWork.decrementAndGet() == 0) {
+                    search.wakeAll();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Parks until a message arrives or the search ends. A sender adds its message before reading {@link
+         * #waiting} and this worker sets it before checking the inbox, so one of them sees the other.
+         */
+        private void awaitMessage() {
+            waiting = true;
+            if (inbox.isEmpty() && search.pendingWork.get() != 0 && !search.isStopped()) {
+                LockSupport.park(this);
+                if (Thread.currentThread().isInterrupted()) {
+                    search.fail(new InterruptedException("Search thread interrupted"));
+                }
+            }
+            waiting = false;
+        }
+
+        private OpenEntry<CS, D> pollPromisingEntry() {
+            OpenEntry<CS, D> entry;
+            while ((entry = openSet.poll()) != null) {
+                if (!search.isPromising(entry.fScore)) {
+                    openSet.clear();
+                    return null;
+                }
+                if (!numHandler.lessThan(gScore.get(entry.state), entry.gScore)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        private void expand(OpenEntry<CS, D> entry) {
+            if (gatherStats) {
+                stats.logSizeOfOpenSet(openSet.size());
+            }
+
+            CS current = entry.state;
+            if (current.equals(search.goal)) {
+                search.offerGoal(current, entry.gScore);
+                return;
+            }
+            TerminationReason reason = search.searchControl.check(search.expansions.getAndIncrement(), openSet.size());
+            if (reason != null) {
+                search.stop(reason);
+                return;
+            }
+            stats.countExpandedNode();
+
+            Set<CS> neighbors = search.stateSpace.getNeighborStatesOf(current);
+            stats.countGeneratedNodes(neighbors.size());
+
+            for (CS neighbor : neighbors) {
+                D tentativeGScore = numHandler.add(entry.gScore, search.costFunction.getHeuristicCost(current, neighbor));
+                Worker owner = search.ownerOf(neighbor);
+                if (owner == this) {
+                    relax(neighbor, tentativeGScore, current);
+                } else {
+                    search.send(new Message<>(neighbor, tentativeGScore, current));
+                }
+            }
+        }
+
+        private void relax(CS state, D tentativeGScore, CS parent) {
+            D currentGScore = gScore.get(state);
+            if (currentGScore != null && numHandler.greaterOrEqual(tentativeGScore, currentGScore)) {
+                return;
+            }
+            D fScore = numHandler.add(tentativeGScore, search.costFunction.getHeuristicCost(state, search.goal));
+            if (!search.isPromising(fScore)) {
+                return;
+            }
+            gScore.put(state, tentativeGScore);
+            cameFrom.put(state, parent);
+            openSet.add(new OpenEntry<>(state, tentativeGScore, fScore));
+        }
+    }
+
+    private static final class SharedExecutor {
+
+        private static final Executor INSTANCE = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setNameFormat("collective-astar-%d")
+                .setDaemon(true)
+                .build());
+    }
+}
@@ -0,0 +1,127 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits of a single search: a wall-clock deadline, a maximum number of expansions, a maximum size of the open set
+ * and a flag which may be raised from another thread to cancel the search. The search checks the limits once per
+ * expansion; the clock is read only every {@value #DEADLINE_CHECK_INTERVAL} expansions.
+ */
+public class SearchControl {
+
+    static final int DEADLINE_CHECK_INTERVAL = 16;
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final Ticker ticker;
+    private final long startNanos;
+    private final long timeoutNanos;
+    private final long maxExpansions;
+    private final int maxOpenSetSize;
+    private volatile boolean cancelled;
+
+    private SearchControl(Builder builder) {
+        ticker = builder.ticker;
+        startNanos = ticker.read();
+        timeoutNanos = builder.timeoutNanos;
+        maxExpansions = builder.maxExpansions;
+        maxOpenSetSize = builder.maxOpenSetSize;
+    }
+
+    public static SearchControl unlimited() {
+        return newBuilder().build();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Requests the search to stop at the next expansion. May be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Called by a search once per expansion.
+     *
+     * @return reason to stop the search after the given number of expansions, or null if it may continue
+     */
+    public TerminationReason check(long expansions, int openSetSize) {
+        if (cancelled) {
+            return TerminationReason.CANCELLED;
+        }
+        if (expansions >= maxExpansions) {
+            return TerminationReason.EXPANSION_LIMIT_REACHED;
+        }
+        if (openSetSize > maxOpenSetSize) {
+            return TerminationReason.OPEN_SET_LIMIT_REACHED;
+        }
+        if (timeoutNanos != NO_DEADLINE && expansions % DEADLINE_CHECK_INTERVAL == 0
+                && ticker.read() - startNanos > timeoutNanos) {
+            return TerminationReason.DEADLINE_EXCEEDED;
+        }
+        return null;
+    }
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("timeoutNanos", timeoutNanos)
+                          .add("maxExpansions", maxExpansions)
+                          .add("maxOpenSetSize", maxOpenSetSize)
+                          .add("cancelled", cancelled)
+                          .toString();
+    }
+
+    public static final class Builder {
+
+        private long timeoutNanos = NO_DEADLINE;
+        private long maxExpansions = Long.MAX_VALUE;
+        private int maxOpenSetSize = Integer.MAX_VALUE;
+        private Ticker ticker = Ticker.systemTicker();
+
+        private Builder() {}
+
+        /**
+         * Deadline counted from the moment the control is built.
+         */
+        public Builder timeout(long timeout, TimeUnit unit) {
+            Preconditions.checkArgument(timeout >= 0, "Non-negative timeout required");
+            timeoutNanos = unit.toNanos(timeout);
+            return this;
+        }
+
+        public Builder maxExpansions(long val) {
+            Preconditions.checkArgument(val > 0, "Positive number of expansions required");
+            maxExpansions = val;
+            return this;
+        }
+
+        public Builder maxOpenSetSize(int val) {
+            Preconditions.checkArgument(val > 0, "Positive open set size required");
+            maxOpenSetSize = val;
+            return this;
+        }
+
+        /**
+         * Source of time for the deadline, the system clock unless given.
+         */
+        public Builder ticker(Ticker val) {
+            ticker = Preconditions.checkNotNull(val);
+            return this;
+        }
+
+        public SearchControl build() {
+            return new SearchControl(this);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package pl.edu.agh.idziak.asw.astar;
+
+/**
+ * Reason for which a collective A* search stopped.
+ */
+public enum TerminationReason {
+    GOAL_REACHED, OPEN_SET_EXHAUSTED, DEADLINE_EXCEEDED, EXPANSION_LIMIT_REACHED, OPEN_SET_LIMIT_REACHED, CANCELLED
+}
@@ -0,0 +1,428 @@
+package pl.edu.agh.idziak.asw.cbs;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStar;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarResults;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarStats;
+import pl.edu.agh.idziak.asw.astar.SearchControl;
+import pl.edu.agh.idziak.asw.astar.TerminationReason;
+import pl.edu.agh.idziak.asw.model.*;
+
+import java.util.*;
+
+/**
+ * Conflict-Based Search. The high level searches a tree of constraints ordered by the sum of costs of the
+ * entity paths. Every node of the tree plans each entity alone with a space-time A* respecting the constraints
+ * of that entity. The first vertex or swap conflict between two paths splits the node into two children, each of
+ * which forbids the conflicting move for one of the two entities.
+ * <p>
+ * Entities stay at their targets after the end of their paths. Waiting in place is always allowed to a single
+ * entity, at the cost given by the cost function for a move from a state to itself.
+ * <p>
+ * The limits of a {@link SearchControl} are checked at every expansion of the low level searches, against the
+ * expansions of all of them together and the open set of the current one, and at every node of the tree.
+ */
+public class ConflictBasedSearch<SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>>
+        implements CollectiveAStar<SS, CS, D> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConflictBasedSearch.class);
+
+    public static final int DEFAULT_MAX_CONSTRAINT_TREE_NODES = 100_000;
+
+    private final AbstractNumberHandler<D> numHandler;
+    private final InputPlanDecomposer<SS, CS, D> decomposer;
+    private final int maxConstraintTreeNodes;
+
+    public ConflictBasedSearch(AbstractNumberHandler<D> abstractNumberHandler, InputPlanDecomposer<SS, CS, D> decomposer) {
+        this(abstractNumberHandler, decomposer, DEFAULT_MAX_CONSTRAINT_TREE_NODES);
+    }
+
+    /**
+     * @param maxConstraintTreeNodes number of constraint tree nodes after which the search gives up and returns no path,
+     *                               with {@link TerminationReason#EXPANSION_LIMIT_REACHED}
+     */
+    public ConflictBasedSearch(AbstractNumberHandler<D> abstractNumberHandler, InputPlanDecomposer<SS, CS, D> decomposer,
+                               int maxConstraintTreeNodes) {
+        Preconditions.checkArgument(maxConstraintTreeNodes > 0, "Positive constraint tree limit required");
+        this.numHandler = abstractNumberHandler;
+        this.decomposer = decomposer;
+        this.maxConstraintTreeNodes = maxConstraintTreeNodes;
+    }
+
+    @Override
+    public CollectiveAStarResults<CS> calculatePath(InputPlan<SS, CS, D> inputPlan, boolean gatherStats,
+                                                    SearchControl searchControl) {
+        Accumulator acc = new Accumulator(inputPlan, gatherStats, searchControl);
+
+        TreeNode root = new TreeNode(null, null);
+        for (Object entity : acc.entities) {
+            List<CS> path = planEntity(acc, entity, Collections.emptySet());
+            if (path == null) {
+                TerminationReason terminationReason = acc.terminationReason != null
+                        ? acc.terminationReason
+                        : TerminationReason.OPEN_SET_EXHAUSTED;
+                return new CollectiveAStarResults<>(null, acc.stats, terminationReason);
+            }
+            root.paths.put(entity, path);
+        }
+        root.cost = sumOfCosts(acc, root.paths);
+        acc.openSet.add(root);
+
+        TreeNode solution = findSolution(acc);
+
+        CollectivePath<CS> collectivePath = solution != null ? combinePaths(acc, solution) : null;
+        return new CollectiveAStarResults<>(collectivePath, acc.stats, acc.terminationReason);
+    }
+
+    private TreeNode findSolution(Accumulator acc) {
+        int createdNodes = 1;
+
+        while (!acc.openSet.isEmpty()) {
+            if (isStopped(acc, acc.openSet.size())) {
+                return null;
+            }
+            if (acc.gatherStats) {
+                acc.stats.logSizeOfOpenSet(acc.openSet.size());
+            }
+
+            TreeNode current = acc.openSet.poll();
+            List<Constraint> conflict = findConflict(acc, current);
+            if (conflict == null) {
+                LOG.debug("Solution found after creating {} constraint tree nodes", createdNodes);
+                acc.terminationReason = TerminationReason.GOAL_REACHED;
+                return current;
+            }
+
+            for (Constraint constraint : conflict) {
+                if (createdNodes++ >= maxConstraintTreeNodes) {
+                    LOG.warn("Constraint tree limit of {} nodes reached", maxConstraintTreeNodes);
+                    acc.terminationReason = TerminationReason.EXPANSION_LIMIT_REACHED;
+                    acc.stats.giveUp();
+                    return null;
+                }
+                TreeNode child = new TreeNode(current, constraint);
+                List<CS> path = planEntity(acc, constraint.entity, child.constraintsOf(constraint.entity));
+                if (acc.terminationReason != null) {
+                    return null;
+                }
+                if (path == null) {
+                    continue;
+                }
+                child.paths.put(constraint.entity, path);
+                child.cost = sumOfCosts(acc, child.paths);
+                acc.openSet.add(child);
+            }
+        }
+        acc.terminationReason = TerminationReason.OPEN_SET_EXHAUSTED;
+        return null;
+    }
+
+    /**
+     * @return true if a limit of the search control has been exceeded, which is then recorded as the reason to stop
+     */
+    private boolean isStopped(Accumulator acc, int openSetSize) {
+        acc.terminationReason = acc.searchControl.check(acc.stats.getExpandedNodesCount(), openSetSize);
+        return acc.terminationReason != null;
+    }
+
+    /**
+     * @return pair of constraints resolving the first conflict between two entity paths, or null if the paths are
+     * conflict free
+     */
+    private List<Constraint> findConflict(Accumulator acc, TreeNode node) {
+        int length = node.paths.values().stream().mapToInt(List::size).max().orElse(0);
+
+        for (int t = 0; t < length; t++) {
+            for (int i = 0; i < acc.entities.size(); i++) {
+                Object first = acc.entities.get(i);
+                Object firstState = entityStateAt(node, first, t);
+
+                for (int j = i + 1; j < acc.entities.size(); j++) {
+                    Object second = acc.entities.get(j);
+                    Object secondState = entityStateAt(node, second, t);
+
+                    if (firstState.equals(secondState)) {
+                        return ImmutableList.of(new Constraint(first, null, firstState, t),
+                                new Constraint(second, null, secondState, t));
+                    }
+                    if (t + 1 < length) {
+                        Object firstNextState = entityStateAt(node, first, t + 1);
+                        Object secondNextState = entityStateAt(node, second, t + 1);
+                        if (firstState.equals(secondNextState) && secondState.equals(firstNextState)) {
+                            return ImmutableList.of(new Constraint(first, firstState, firstNextState, t + 1),
+                                    new Constraint(second, secondState, secondNextState, t + 1));
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private Object entityStateAt(TreeNode node, Object entity, int t) {
+        List<CS> path = node.paths.get(entity);
+        return path.get(Math.min(t, path.size() - 1)).getStateForEntity(entity);
+    }
+
+    /**
+     * Space-time A* of a single entity. Times later than the last constraint of the entity are not distinguished,
+     * so the search space stays finite and the search ends when the target is unreachable.
+     */
+    private List<CS> planEntity(Accumulator acc, Object entity, Set<Constraint> constraints) {
+        InputPlan<SS, CS, D> entityPlan = acc.entityPlans.get(entity);
+        CS goal = entityPlan.getTargetCollectiveState();
+        Object goalEntityState = goal.getStateForEntity(entity);
+
+        int horizon = 0;
+        int lastConstraintOnGoal = -1;
+        for (Constraint constraint : constraints) {
+            horizon = Math.max(horizon, constraint.time);
+            if (constraint.isVertex() && constraint.to.equals(goalEntityState)) {
+                lastConstraintOnGoal = Math.max(lastConstraintOnGoal, constraint.time);
+            }
+        }
+
+        PriorityQueue<SearchEntry> openSet = new PriorityQueue<>();
+        Map<SearchNode, D> gScore = new HashMap<>();
+        Map<SearchNode, SearchNode> cameFrom = new HashMap<>();
+        Set<SearchNode> closedSet = new HashSet<>();
+
+        SearchNode start = new SearchNode(entityPlan.getInitialCollectiveState(), 0, horizon);
+        gScore.put(start, numHandler.getZero());
+        openSet.add(new SearchEntry(start, numHandler.getZero(), acc.costFunction.getHeuristicCost(start.state, goal)));
+
+        while (!openSet.isEmpty()) {
+            SearchEntry entry = openSet.poll();
+            SearchNode current = entry.node;
+            if (!closedSet.add(current)) {
+                continue;
+            }
+            if (isStopped(acc, openSet.size())) {
+                return null;
+            }
+            acc.stats.countExpandedNode();
+
+            if (current.time > lastConstraintOnGoal && current.state.equals(goal)) {
+                return reconstructPath(cameFrom, current);
+            }
+
+            Set<CS> neighbors = entityPlan.getStateSpace().getNeighborStatesOf(current.state);
+            List<CS> moves = new ArrayList<>(neighbors.size() + 1);
+            moves.add(current.state);
+            moves.addAll(neighbors);
+            acc.stats.countGeneratedNodes(moves.size());
+
+            Object currentEntityState = current.state.getStateForEntity(entity);
+            for (CS move : moves) {
+                int time = current.time + 1;
+                Object moveEntityState = move.getStateForEntity(entity);
+                if (constraints.contains(new Constraint(entity, null, moveEntityState, time))
+                        || constraints.contains(new Constraint(entity, currentEntityState, moveEntityState, time))) {
+                    continue;
+                }
+
+                SearchNode successor = new SearchNode(move, time, horizon);
+                if (closedSet.contains(successor)) {
+                    continue;
+                }
+                D tentativeGScore = numHandler.add(entry.gScore, acc.costFunction.getHeuristicCost(current.state, move));
+                D successorGScore = gScore.get(successor);
+                if (successorGScore != null && numHandler.greaterOrEqual(tentativeGScore, successorGScore)) {
+                    continue;
+                }
+                gScore.put(successor, tentativeGScore);
+                cameFrom.put(successor, current);
+                openSet.add(new SearchEntry(successor, tentativeGScore,
+                        numHandler.add(tentativeGScore, acc.costFunction.getHeuristicCost(move, goal))));
+            }
+        }
+        return null;
+    }
+
+    private List<CS> reconstructPath(Map<SearchNode, SearchNode> cameFrom, SearchNode goal) {
+        LinkedList<CS> reconstructedPath = new LinkedList<>();
+        SearchNode current = goal;
+        reconstructedPath.add(current.state);
+
+        while ((current = cameFrom.get(current)) != null) {
+            reconstructedPath.addFirst(current.state);
+        }
+        return reconstructedPath;
+    }
+
+    private D sumOfCosts(Accumulator acc, Map<Object, List<CS>> paths) {
+        D sum = numHandler.getZero();
+        for (List<CS> path : paths.values()) {
+            for (int i = 1; i < path.size(); i++) {
+                sum = numHandler.add(sum, acc.costFunction.getHeuristicCost(path.get(i - 1), path.get(i)));
+            }
+        }
+        return sum;
+    }
+
+    private CollectivePath<CS> combinePaths(Accumulator acc, TreeNode node) {
+        int length = node.paths.values().stream().mapToInt(List::size).max().orElse(0);
+        List<CS> combinedPath = new ArrayList<>(length);
+
+        for (int t = 0; t < length; t++) {
+            List<CS> entityStates = new ArrayList<>(acc.entities.size());
+            for (Object entity : acc.entities) {
+                List<CS> path = node.paths.get(entity);
+                entityStates.add(path.get(Math.min(t, path.size() - 1)));
+            }
+            combinedPath.add(decomposer.combine(entityStates));
+        }
+        return ImmutableCollectivePath.from(combinedPath);
+    }
+
+    /**
+     * Forbids the entity to be in state {@code to} at the given time, or to enter it from state {@code from}
+     * when {@code from} is not null.
+     */
+    private static final class Constraint {
+
+        private final Object entity;
+        private final Object from;
+        private final Object to;
+        private final int time;
+
+        private Constraint(Object entity, Object from, Object to, int time) {
+            this.entity = entity;
+            this.from = from;
+            this.to = to;
+            this.time = time;
+        }
+
+        private boolean isVertex() {
+            return from == null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Constraint that = (Constraint) o;
+            return time == that.time
+                    && entity.equals(that.entity)
+                    && Objects.equals(from, that.from)
+                    && to.equals(that.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entity, from, to, time);
+        }
+
+        @Override
+        public String toString() {
+            return entity + (isVertex() ? " not at " : " not from " + from + " to ") + to + " at " + time;
+        }
+    }
+
+    /**
+     * Constraint tree node. Keeps its own constraint and the paths of all entities; constraints of the
+     * ancestors are reached through the parent.
+     */
+    private final class TreeNode implements Comparable<TreeNode> {
+
+        private final TreeNode parent;
+        private final Constraint constraint;
+        private final Map<Object, List<CS>> paths;
+        private D cost;
+
+        private TreeNode(TreeNode parent, Constraint constraint) {
+            this.parent = parent;
+            this.constraint = constraint;
+            this.paths = parent != null ? new HashMap<>(parent.paths) : new HashMap<>();
+        }
+
+        private Set<Constraint> constraintsOf(Object entity) {
+            Set<Constraint> constraints = new HashSet<>();
+            for (TreeNode node = this; node != null; node = node.parent) {
+                if (node.constraint != null && node.constraint.entity.equals(entity)) {
+                    constraints.add(node.constraint);
+                }
+            }
+            return constraints;
+        }
+
+        @Override
+        public int compareTo(TreeNode other) {
+            return cost.compareTo(other.cost);
+        }
+    }
+
+    private final class SearchNode {
+
+        private final CS state;
+        private final int time;
+        private final int timeKey;
+
+        private SearchNode(CS state, int time, int horizon) {
+            this.state = state;
+            this.time = time;
+            this.timeKey = Math.min(time, horizon + 1);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ConflictBasedSearch<?, ?, ?>.SearchNode that = (ConflictBasedSearch<?, ?, ?>.SearchNode) o;
+            return timeKey == that.timeKey && state.equals(that.state);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * state.hashCode() + timeKey;
+        }
+    }
+
+    private final class SearchEntry implements Comparable<SearchEntry> {
+
+        private final SearchNode node;
+        private final D gScore;
+        private final D fScore;
+
+        private SearchEntry(SearchNode node, D gScore, D fScore) {
+            this.node = node;
+            this.gScore = gScore;
+            this.fScore = fScore;
+        }
+
+        @Override
+        public int compareTo(SearchEntry other) {
+            int fComparison = fScore.compareTo(other.fScore);
+            return fComparison != 0 ? fComparison : other.gScore.compareTo(gScore);
+        }
+    }
+
+    private class Accumulator {
+
+        private List<?> entities;
+        private Map<Object, InputPlan<SS, CS, D>> entityPlans;
+        private CostFunction<CS, D> costFunction;
+        private PriorityQueue<TreeNode> openSet;
+        private CollectiveAStarStats stats;
+        private boolean gatherStats;
+        private SearchControl searchControl;
+        private TerminationReason terminationReason;
+
+        Accumulator(InputPlan<SS, CS, D> inputPlan, boolean gatherStats, SearchControl searchControl) {
+            entities = ImmutableList.copyOf(inputPlan.getEntities());
+            entityPlans = new HashMap<>();
+            for (Object entity : entities) {
+                entityPlans.put(entity, decomposer.restrictTo(inputPlan, ImmutableSet.of(entity)));
+            }
+            costFunction = inputPlan.getCostFunction();
+            openSet = new PriorityQueue<>();
+            stats = new CollectiveAStarStats();
+            this.gatherStats = gatherStats;
+            this.searchControl = searchControl;
+        }
+    }
+}
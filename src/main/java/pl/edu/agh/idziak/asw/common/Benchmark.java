@@ -14,17 +14,23 @@ public class Benchmark {
     private Long aStarCalculationTimeMs;
     private Long deviationZonesSearchTimeMs;
     private Long wavefrontCalculationTimeMs;
+    private Long wavefrontCpuTimeMs;
     private List<Integer> openSetSizeLog;
     private Integer maxSizeOfOpenSet;
+    private Long expandedNodesCount;
+    private Long generatedNodesCount;
     private AlgorithmType algorithmType;
 
     private Benchmark(Builder builder) {
         aStarCalculationTimeMs = builder.aStarCalculationTimeMs;
         deviationZonesSearchTimeMs = builder.deviationZonesSearchTimeMs;
         wavefrontCalculationTimeMs = builder.wavefrontCalculationTimeMs;
+        wavefrontCpuTimeMs = builder.wavefrontCpuTimeMs;
         openSetSizeLog = builder.openSetSizeLog;
         if (openSetSizeLog != null)
             maxSizeOfOpenSet = openSetSizeLog.stream().max(Comparator.naturalOrder()).orElse(null);
+        expandedNodesCount = builder.expandedNodesCount;
+        generatedNodesCount = builder.generatedNodesCount;
         algorithmType = builder.algorithmType;
     }
 
@@ -40,6 +46,14 @@ public class Benchmark {
         return wavefrontCalculationTimeMs;
     }
 
+    /**
+     * @return CPU time spent on the plans of all deviation zones, summed over the threads building them, while
+     * {@link #getWavefrontCalculationTimeMs()} is the wall time of the whole stage
+     */
+    public Long getWavefrontCpuTimeMs() {
+        return wavefrontCpuTimeMs;
+    }
+
     public static Builder newBuilder() {
         return new Builder();
     }
@@ -58,6 +72,14 @@ public class Benchmark {
         return openSetSizeLog.size();
     }
 
+    public Long getExpandedNodesCount() {
+        return expandedNodesCount;
+    }
+
+    public Long getGeneratedNodesCount() {
+        return generatedNodesCount;
+    }
+
     public AlgorithmType getAlgorithmType() {
         return algorithmType;
     }
@@ -67,7 +89,10 @@ public class Benchmark {
         private Long aStarCalculationTimeMs;
         private Long deviationZonesSearchTimeMs;
         private Long wavefrontCalculationTimeMs;
+        private Long wavefrontCpuTimeMs;
         private List<Integer> openSetSizeLog;
+        private Long expandedNodesCount;
+        private Long generatedNodesCount;
         private AlgorithmType algorithmType;
 
         private Builder() {}
@@ -91,11 +116,26 @@ public class Benchmark {
             return this;
         }
 
+        public Builder wavefrontCpuTimeMs(Long val) {
+            wavefrontCpuTimeMs = val;
+            return this;
+        }
+
         public Builder openSetSizeLog(List<Integer> val) {
             openSetSizeLog = val;
             return this;
         }
 
+        public Builder expandedNodesCount(Long val) {
+            expandedNodesCount = val;
+            return this;
+        }
+
+        public Builder generatedNodesCount(Long val) {
+            generatedNodesCount = val;
+            return this;
+        }
+
         public Builder algorithmType(AlgorithmType val) {
             algorithmType = val;
             return this;
@@ -109,8 +149,11 @@ public class Benchmark {
                           .add("aStarCalculationTimeMs", aStarCalculationTimeMs)
                           .add("deviationZonesSearchTimeMs", deviationZonesSearchTimeMs)
                           .add("wavefrontCalculationTimeMs", wavefrontCalculationTimeMs)
+                          .add("wavefrontCpuTimeMs", wavefrontCpuTimeMs)
                           .add("iterationCount", openSetSizeLog.size())
                           .add("maxSizeOfOpenSet", maxSizeOfOpenSet)
+                          .add("expandedNodesCount", expandedNodesCount)
+                          .add("generatedNodesCount", generatedNodesCount)
                           .toString();
     }
 }
@@ -0,0 +1,260 @@
+package pl.edu.agh.idziak.asw.common;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Open list for costs which take few distinct values, such as sums of the costs of {@link
+ * pl.edu.agh.idziak.asw.impl.grid2d.G2DCostFunction}. Values are rounded to multiples of a quantum and every
+ * multiple gets its own bucket, so no comparisons of values are needed. The buckets form a circular window over the
+ * multiples between the lowest and the highest queued value, and a bucket emptied by polling is reused once the
+ * window moves over it. Within a bucket the keys are kept in a binary heap ordered by their tie-breakers. Every key
+ * has one entry which knows its place, so a lowered value moves the entry to another bucket instead of leaving a
+ * stale copy behind. Infinite values are kept in a separate bucket polled last.
+ */
+public class BucketQueue<K> implements OpenList<K, Double> {
+
+    public static final double DEFAULT_QUANTUM = 1e-4;
+    private static final int MAX_BUCKETS = 1 << 26;
+    private static final int INITIAL_BUCKETS = 1024;
+    private static final long INFINITE_INDEX = Long.MAX_VALUE;
+
+    private final double quantum;
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private final Bucket<K> infiniteBucket = new Bucket<>();
+    private Bucket<K>[] buckets = newBuckets(INITIAL_BUCKETS);
+    private long lowestIndex;
+    private long highestIndex;
+    private int finiteCount;
+    private long counter;
+
+    public BucketQueue() {
+        this(DEFAULT_QUANTUM);
+    }
+
+    public BucketQueue(double quantum) {
+        Preconditions.checkArgument(quantum > 0, "Positive quantum required");
+        this.quantum = quantum;
+    }
+
+    @Override
+    public boolean add(K key, Double value, Double tieBreaker) {
+        Entry<K> entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry<>(key);
+            entries.put(key, entry);
+        } else {
+            if (entry.value <= value) {
+                return false;
+            }
+            unlink(entry);
+        }
+        entry.value = value;
+        entry.tieBreaker = tieBreaker != null ? tieBreaker : 0;
+        entry.stamp = counter++;
+        link(entry);
+        return true;
+    }
+
+    @Override
+    public K pollFirst() {
+        Bucket<K> bucket = infiniteBucket;
+        if (finiteCount > 0) {
+            while ((bucket = buckets[slotOf(lowestIndex)]) == null || bucket.isEmpty()) {
+                lowestIndex++;
+            }
+            finiteCount--;
+        }
+        if (bucket.isEmpty()) {
+            return null;
+        }
+        Entry<K> entry = bucket.poll();
+        entries.remove(entry.key);
+        return entry.key;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    private void link(Entry<K> entry) {
+        if (Double.isInfinite(entry.value) || Double.isNaN(entry.value)) {
+            entry.index = INFINITE_INDEX;
+            infiniteBucket.add(entry);
+            return;
+        }
+        long index = Math.round(entry.value / quantum);
+        if (finiteCount == 0) {
+            lowestIndex = index;
+            highestIndex = index;
+        } else if (index < lowestIndex || index > highestIndex) {
+            long lowest = Math.min(lowestIndex, index);
+            long highest = Math.max(highestIndex, index);
+            if (highest - lowest >= buckets.length) {
+                grow(highest - lowest + 1);
+            }
+            lowestIndex = lowest;
+            highestIndex = highest;
+        }
+        entry.index = index;
+        int slot = slotOf(index);
+        if (buckets[slot] == null) {
+            buckets[slot] = new Bucket<>();
+        }
+        buckets[slot].add(entry);
+        finiteCount++;
+    }
+
+    private void unlink(Entry<K> entry) {
+        if (entry.index == INFINITE_INDEX) {
+            infiniteBucket.remove(entry);
+        } else {
+            buckets[slotOf(entry.index)].remove(entry);
+            finiteCount--;
+        }
+    }
+
+    /**
+     * Widens the window so that it covers the given number of multiples, keeping every queued bucket.
+     */
+    private void grow(long required) {
+        if (required > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Values span more than " + MAX_BUCKETS + " buckets of size " + quantum);
+        }
+        int length = buckets.length;
+        while (length < required) {
+            length *= 2;
+        }
+        Bucket<K>[] grown = newBuckets(length);
+        for (long index = lowestIndex; index <= highestIndex; index++) {
+            grown[(int) (index & (length - 1))] = buckets[slotOf(index)];
+        }
+        buckets = grown;
+    }
+
+    private int slotOf(long index) {
+        return (int) (index & (buckets.length - 1));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K> Bucket<K>[] newBuckets(int count) {
+        return new Bucket[count];
+    }
+
+    private static final class Entry<K> {
+
+        private final K key;
+        private double value;
+        private double tieBreaker;
+        private long stamp;
+        private long index;
+        private int position;
+
+        private Entry(K key) {
+            this.key = key;
+        }
+
+        /**
+         * Higher tie-breaker first, then the entry queued last.
+         */
+        private boolean precedes(Entry<K> other) {
+            int comparison = Double.compare(other.tieBreaker, tieBreaker);
+            return comparison < 0 || comparison == 0 && stamp > other.stamp;
+        }
+    }
+
+    /**
+     * Binary heap of the entries of one multiple of the quantum.
+     */
+    private static final class Bucket<K> {
+
+        private Entry<K>[] heap = newEntries(4);
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(Entry<K> entry) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            siftUp(size++, entry);
+        }
+
+        Entry<K> poll() {
+            Entry<K> first = heap[0];
+            removeAt(0);
+            return first;
+        }
+
+        void remove(Entry<K> entry) {
+            removeAt(entry.position);
+        }
+
+        private void removeAt(int position) {
+            Entry<K> last = heap[--size];
+            heap[size] = null;
+            if (position < size) {
+                siftDown(position, last);
+                if (heap[position] == last) {
+                    siftUp(position, last);
+                }
+            }
+        }
+
+        private void siftUp(int position, Entry<K> entry) {
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+                if (!entry.precedes(heap[parent])) {
+                    break;
+                }
+                place(position, heap[parent]);
+                position = parent;
+            }
+            place(position, entry);
+        }
+
+        private void siftDown(int position, Entry<K> entry) {
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1].precedes(heap[child])) {
+                    child++;
+                }
+                if (!heap[child].precedes(entry)) {
+                    break;
+                }
+                place(position, heap[child]);
+                position = child;
+            }
+            place(position, entry);
+        }
+
+        private void place(int position, Entry<K> entry) {
+            heap[position] = entry;
+            entry.position = position;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static <K> Entry<K>[] newEntries(int capacity) {
+            return new Entry[capacity];
+        }
+    }
+}
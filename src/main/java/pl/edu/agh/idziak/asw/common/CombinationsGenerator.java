@@ -14,6 +14,50 @@ import static java.util.stream.Collectors.toCollection;
  */
 public class CombinationsGenerator {
 
+    /**
+     * Tests the choice at the given position against the choices at the preceding positions, which were accepted.
+     */
+    @FunctionalInterface
+    public interface PrefixPredicate {
+        boolean test(int[] choices, int position);
+    }
+
+    @FunctionalInterface
+    public interface CombinationConsumer {
+        void accept(int[] choices);
+    }
+
+    /**
+     * Enumerates the combinations of choices like an odometer, choice i at position p ranging from 0 to
+     * choiceCounts[p] - 1. The predicate is asked about every position in turn as a combination is extended, and a
+     * choice it rejects is skipped together with all its completions. Accepted combinations are passed to the
+     * consumer in one array reused for all of them, so nothing is allocated after the start.
+     */
+    public static void forEachCombination(int[] choiceCounts, PrefixPredicate predicate, CombinationConsumer consumer) {
+        int size = choiceCounts.length;
+        int[] choices = new int[size];
+        if (size == 0) {
+            consumer.accept(choices);
+            return;
+        }
+
+        int position = 0;
+        while (position >= 0) {
+            if (choices[position] >= choiceCounts[position]) {
+                if (--position >= 0) {
+                    choices[position]++;
+                }
+            } else if (!predicate.test(choices, position)) {
+                choices[position]++;
+            } else if (position == size - 1) {
+                consumer.accept(choices);
+                choices[position]++;
+            } else {
+                choices[++position] = 0;
+            }
+        }
+    }
+
     public static <T> List<List<T>> generateCombinations(List<List<T>> choiceArray, Predicate<List<T>> predicate) {
         Preconditions.checkNotNull(choiceArray);
 
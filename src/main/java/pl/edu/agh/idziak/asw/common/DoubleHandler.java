@@ -42,4 +42,9 @@ public class DoubleHandler implements AbstractNumberHandler<Double> {
     public boolean lessThan(Double one, Double two) {
         return one < two;
     }
+
+    @Override
+    public Double multiply(Double value, double factor) {
+        return value * factor;
+    }
 }
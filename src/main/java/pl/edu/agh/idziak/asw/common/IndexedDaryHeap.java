@@ -0,0 +1,161 @@
+package pl.edu.agh.idziak.asw.common;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Open list kept in an implicit d-ary heap of entries. Every entry holds its own position in the heap, so a queued
+ * key can have its value lowered in place, and moving an entry during a sift only updates an int field. The map
+ * from keys to entries is consulted once per operation.
+ */
+public class IndexedDaryHeap<K, V extends Comparable<V>> implements OpenList<K, V> {
+
+    public static final int DEFAULT_ARITY = 4;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int arity;
+    private final Map<K, Entry<K, V>> entries = new HashMap<>();
+    private Entry<K, V>[] heap = newHeap(INITIAL_CAPACITY);
+    private int size;
+    private long counter;
+
+    public IndexedDaryHeap() {
+        this(DEFAULT_ARITY);
+    }
+
+    public IndexedDaryHeap(int arity) {
+        Preconditions.checkArgument(arity >= 2, "Heap arity must be at least 2");
+        this.arity = arity;
+    }
+
+    @Override
+    public boolean add(K key, V value, V tieBreaker) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            entry = new Entry<>(key);
+            entries.put(key, entry);
+            entry.setPriority(value, tieBreaker, counter++);
+            siftUp(size++, entry);
+            return true;
+        }
+        if (entry.value.compareTo(value) <= 0) {
+            return false;
+        }
+        entry.setPriority(value, tieBreaker, counter++);
+        siftUp(entry.position, entry);
+        return true;
+    }
+
+    @Override
+    public K pollFirst() {
+        if (size == 0) {
+            return null;
+        }
+        Entry<K, V> first = heap[0];
+        entries.remove(first.key);
+
+        int last = --size;
+        if (last > 0) {
+            siftDown(0, heap[last]);
+        }
+        heap[last] = null;
+        return first.key;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int position, Entry<K, V> entry) {
+        while (position > 0) {
+            int parent = (position - 1) / arity;
+            if (!entry.precedes(heap[parent])) {
+                break;
+            }
+            place(position, heap[parent]);
+            position = parent;
+        }
+        place(position, entry);
+    }
+
+    private void siftDown(int position, Entry<K, V> entry) {
+        while (true) {
+            int firstChild = position * arity + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int best = firstChild;
+            int lastChild = Math.min(firstChild + arity, size);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (heap[child].precedes(heap[best])) {
+                    best = child;
+                }
+            }
+            if (!heap[best].precedes(entry)) {
+                break;
+            }
+            place(position, heap[best]);
+            position = best;
+        }
+        place(position, entry);
+    }
+
+    private void place(int position, Entry<K, V> entry) {
+        heap[position] = entry;
+        entry.position = position;
+    }
+
+    static <V extends Comparable<V>> boolean precedes(V value, V tieBreaker, long stamp,
+                                                      V otherValue, V otherTieBreaker, long otherStamp) {
+        int comparison = value.compareTo(otherValue);
+        if (comparison == 0 && tieBreaker != null && otherTieBreaker != null) {
+            comparison = otherTieBreaker.compareTo(tieBreaker);
+        }
+        return comparison < 0 || comparison == 0 && stamp > otherStamp;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V extends Comparable<V>> Entry<K, V>[] newHeap(int capacity) {
+        return new Entry[capacity];
+    }
+
+    private static final class Entry<K, V extends Comparable<V>> {
+
+        private final K key;
+        private V value;
+        private V tieBreaker;
+        private long stamp;
+        private int position;
+
+        private Entry(K key) {
+            this.key = key;
+        }
+
+        private void setPriority(V value, V tieBreaker, long stamp) {
+            this.value = value;
+            this.tieBreaker = tieBreaker;
+            this.stamp = stamp;
+        }
+
+        private boolean precedes(Entry<K, V> other) {
+            return IndexedDaryHeap.precedes(value, tieBreaker, stamp, other.value, other.tieBreaker, other.stamp);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package pl.edu.agh.idziak.asw.common;
+
+import com.google.common.base.Preconditions;
+
+import java.util.function.Consumer;
+
+/**
+ * Hash map from objects to primitive doubles, with open addressing over parallel key and value arrays, so storing a
+ * value allocates neither an entry nor a boxed double. Null keys are not supported.
+ */
+public class ObjectDoubleHashMap<K> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Object[] keys;
+    private double[] values;
+    private int mask;
+    private int size;
+
+    public ObjectDoubleHashMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ObjectDoubleHashMap(int expectedSize) {
+        Preconditions.checkArgument(expectedSize >= 0, "Negative expected size");
+        allocate(Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) << 1);
+    }
+
+    /**
+     * @return value of the key, or the default value if the key is absent
+     */
+    public double get(K key, double defaultValue) {
+        int slot = slotOf(key);
+        return keys[slot] == null ? defaultValue : values[slot];
+    }
+
+    public boolean containsKey(K key) {
+        return keys[slotOf(key)] != null;
+    }
+
+    public void put(K key, double value) {
+        Preconditions.checkNotNull(key);
+        int slot = slotOf(key);
+        if (keys[slot] == null) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                values[slot] = value;
+                rehash();
+                return;
+            }
+        }
+        values[slot] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachKey(Consumer<? super K> action) {
+        for (Object key : keys) {
+            if (key != null) {
+                action.accept((K) key);
+            }
+        }
+    }
+
+    private int slotOf(Object key) {
+        int slot = mix(key.hashCode()) & mask;
+        while (keys[slot] != null && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    private void rehash() {
+        Object[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new double[capacity];
+        mask = capacity - 1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                builder.append(builder.length() > 1 ? ", " : "").append(keys[i]).append('=').append(values[i]);
+            }
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,32 @@
+package pl.edu.agh.idziak.asw.common;
+
+/**
+ * Priority queue of search states ordered by their f-scores, lowest first. Keys with equal values are polled
+ * with the highest tie-breaker first, which for A* is the g-score, and then in the reverse order of insertion.
+ */
+public interface OpenList<K, V extends Comparable<V>> {
+
+    /**
+     * Queues the key, or lowers its value if it is already queued with a higher one.
+     *
+     * @return false if the key was already queued with a value not higher than the given one
+     */
+    boolean add(K key, V value, V tieBreaker);
+
+    default boolean add(K key, V value) {
+        return add(key, value, null);
+    }
+
+    /**
+     * Removes the key with the lowest value.
+     *
+     * @return the removed key or null if the list is empty
+     */
+    K pollFirst();
+
+    boolean containsKey(K key);
+
+    boolean isEmpty();
+
+    int size();
+}
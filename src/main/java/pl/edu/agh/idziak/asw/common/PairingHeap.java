@@ -0,0 +1,150 @@
+package pl.edu.agh.idziak.asw.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Open list kept in a pairing heap. Inserting and lowering a value take constant time, as the node is only cut from
+ * its parent and melded with the root; the work is deferred to the two-pass pairing of the root's children when the
+ * first key is polled.
+ */
+public class PairingHeap<K, V extends Comparable<V>> implements OpenList<K, V> {
+
+    private final Map<K, Node<K, V>> nodes = new HashMap<>();
+    private final List<Node<K, V>> pairingBuffer = new ArrayList<>();
+    private Node<K, V> root;
+    private long counter;
+
+    @Override
+    public boolean add(K key, V value, V tieBreaker) {
+        Node<K, V> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key, value, tieBreaker, counter++);
+            nodes.put(key, node);
+            root = root == null ? node : meld(root, node);
+            return true;
+        }
+        if (node.value.compareTo(value) <= 0) {
+            return false;
+        }
+        node.value = value;
+        node.tieBreaker = tieBreaker;
+        node.stamp = counter++;
+        if (node != root) {
+            cut(node);
+            root = meld(root, node);
+        }
+        return true;
+    }
+
+    @Override
+    public K pollFirst() {
+        if (root == null) {
+            return null;
+        }
+        Node<K, V> first = root;
+        nodes.remove(first.key);
+        root = pairChildren(first);
+        if (root != null) {
+            root.previous = null;
+        }
+        return first.key;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return nodes.containsKey(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    private static <K, V extends Comparable<V>> Node<K, V> meld(Node<K, V> first, Node<K, V> second) {
+        if (IndexedDaryHeap.precedes(second.value, second.tieBreaker, second.stamp,
+                first.value, first.tieBreaker, first.stamp)) {
+            Node<K, V> swap = first;
+            first = second;
+            second = swap;
+        }
+        second.previous = first;
+        second.nextSibling = first.child;
+        if (first.child != null) {
+            first.child.previous = second;
+        }
+        first.child = second;
+        first.nextSibling = null;
+        return first;
+    }
+
+    /**
+     * Detaches the node, together with its subtree, from its parent or left sibling.
+     */
+    private static <K, V extends Comparable<V>> void cut(Node<K, V> node) {
+        if (node.previous.child == node) {
+            node.previous.child = node.nextSibling;
+        } else {
+            node.previous.nextSibling = node.nextSibling;
+        }
+        if (node.nextSibling != null) {
+            node.nextSibling.previous = node.previous;
+        }
+        node.previous = null;
+        node.nextSibling = null;
+    }
+
+    private Node<K, V> pairChildren(Node<K, V> parent) {
+        pairingBuffer.clear();
+        Node<K, V> child = parent.child;
+        while (child != null) {
+            Node<K, V> first = child;
+            Node<K, V> second = child.nextSibling;
+            child = second != null ? second.nextSibling : null;
+            first.previous = null;
+            first.nextSibling = null;
+            if (second != null) {
+                second.previous = null;
+                second.nextSibling = null;
+                first = meld(first, second);
+            }
+            pairingBuffer.add(first);
+        }
+        parent.child = null;
+
+        Node<K, V> result = null;
+        for (int i = pairingBuffer.size() - 1; i >= 0; i--) {
+            result = result == null ? pairingBuffer.get(i) : meld(pairingBuffer.get(i), result);
+        }
+        pairingBuffer.clear();
+        return result;
+    }
+
+    private static final class Node<K, V> {
+
+        private final K key;
+        private V value;
+        private V tieBreaker;
+        private long stamp;
+        private Node<K, V> child;
+        private Node<K, V> nextSibling;
+        /**
+         * Parent if this is the first child, left sibling otherwise.
+         */
+        private Node<K, V> previous;
+
+        private Node(K key, V value, V tieBreaker, long stamp) {
+            this.key = key;
+            this.value = value;
+            this.tieBreaker = tieBreaker;
+            this.stamp = stamp;
+        }
+    }
+}
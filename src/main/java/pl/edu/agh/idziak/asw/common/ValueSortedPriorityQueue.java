@@ -6,8 +6,11 @@ import java.util.*;
 
 /**
  * Created by Tomasz on 13.07.2016.
+ * <p>
+ * Lowering the value of a queued key queues a new entry and leaves the old one in the queue, where it is skipped
+ * when polled.
  */
-public class ValueSortedPriorityQueue<K, V extends Comparable<V>> {
+public class ValueSortedPriorityQueue<K, V extends Comparable<V>> implements OpenList<K, V> {
 
     private long counter = 0;
     private K firstKey;
@@ -20,11 +23,13 @@ public class ValueSortedPriorityQueue<K, V extends Comparable<V>> {
 
         private K key;
         private V value;
+        private V tieBreaker;
         private long stampId;
 
-        public Entry(K key, V value, long stampId) {
+        public Entry(K key, V value, V tieBreaker, long stampId) {
             this.key = key;
             this.value = value;
+            this.tieBreaker = tieBreaker;
             this.stampId = stampId;
         }
 
@@ -36,42 +41,50 @@ public class ValueSortedPriorityQueue<K, V extends Comparable<V>> {
         }
     }
 
-    private PriorityQueue<Entry<K, V>> queue = new PriorityQueue<>((o1, o2) -> {
-        int valueComp = o1.value.compareTo(o2.value);
-        if (valueComp == 0) {
-            return o1.stampId > o2.stampId ? -1 : 1;
-        }
-        return valueComp;
-    });
-    private Set<K> keySet = new HashSet<>();
+    private PriorityQueue<Entry<K, V>> queue = new PriorityQueue<>((o1, o2) ->
+            IndexedDaryHeap.precedes(o1.value, o1.tieBreaker, o1.stampId, o2.value, o2.tieBreaker, o2.stampId) ? -1 : 1);
+    private Map<K, Entry<K, V>> queuedEntries = new HashMap<>();
 
 
-    public void add(K key, V value) {
-        if (!keySet.add(key)) {
-            return;
+    @Override
+    public boolean add(K key, V value, V tieBreaker) {
+        Entry<K, V> queued = queuedEntries.get(key);
+        if (queued != null && queued.value.compareTo(value) <= 0) {
+            return false;
         }
-        queue.add(new Entry<>(key, value, counter++));
+        Entry<K, V> entry = new Entry<>(key, value, tieBreaker, counter++);
+        queuedEntries.put(key, entry);
+        queue.add(entry);
+        return true;
     }
 
+    @Override
     public boolean isEmpty() {
-        return keySet.size() == 0;
+        return queuedEntries.isEmpty();
     }
 
-    public void pollFirst() {
+    @Override
+    public K pollFirst() {
         Entry<K, V> entry = queue.poll();
+        while (entry != null && queuedEntries.get(entry.key) != entry) {
+            entry = queue.poll();
+        }
         if (entry != null) {
             firstKey = entry.key;
-            keySet.remove(entry.key);
+            queuedEntries.remove(entry.key);
         } else {
             firstKey = null;
         }
+        return firstKey;
     }
 
+    @Override
     public boolean containsKey(K key) {
-        return keySet.contains(key);
+        return queuedEntries.containsKey(key);
     }
 
+    @Override
     public int size() {
-        return keySet.size();
+        return queuedEntries.size();
     }
 }
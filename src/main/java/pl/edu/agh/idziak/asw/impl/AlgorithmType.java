@@ -4,5 +4,5 @@ package pl.edu.agh.idziak.asw.impl;
  * Created by Tomasz on 07.03.2017.
  */
 public enum AlgorithmType {
-    ASW, ASTAR_ONLY, WAVEFRONT
+    ASW, ASTAR_ONLY, WAVEFRONT, CBS
 }
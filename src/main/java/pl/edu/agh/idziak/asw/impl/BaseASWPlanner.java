@@ -1,8 +1,11 @@
 package pl.edu.agh.idziak.asw.impl;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.MoreExecutors;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStar;
 import pl.edu.agh.idziak.asw.astar.CollectiveAStarImpl;
 import pl.edu.agh.idziak.asw.astar.CollectiveAStarResults;
+import pl.edu.agh.idziak.asw.astar.SearchControl;
 import pl.edu.agh.idziak.asw.common.Benchmark;
 import pl.edu.agh.idziak.asw.model.*;
 import pl.edu.agh.idziak.asw.wavefront.Subspace;
@@ -10,10 +13,18 @@ import pl.edu.agh.idziak.asw.wavefront.SubspacePlan;
 import pl.edu.agh.idziak.asw.wavefront.Wavefront;
 import pl.edu.agh.idziak.asw.wavefront.impl.WavefrontImpl;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 /**
@@ -23,30 +34,69 @@ public class BaseASWPlanner<IP extends InputPlan<SS, CS, D>,
         SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>>
         implements ASWPlanner<IP, SS, CS> {
 
-    private final CollectiveAStarImpl<SS, CS, D> collectiveAStar;
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final CollectiveAStar<SS, CS, D> collectiveAStar;
     private final Wavefront<SS, CS, D> wavefront;
     private final DeviationZonesFinder<IP, CS> deviationZonesFinder;
+    private final Executor wavefrontExecutor;
 
     public BaseASWPlanner(AbstractNumberHandler<D> numberHandler, DeviationZonesFinder<IP, CS> deviationZonesFinder) {
-        collectiveAStar = new CollectiveAStarImpl<>(numberHandler);
-        wavefront = new WavefrontImpl<>(numberHandler);
+        this(new CollectiveAStarImpl<>(numberHandler), numberHandler, deviationZonesFinder);
+    }
+
+    public BaseASWPlanner(CollectiveAStar<SS, CS, D> collectiveAStar, AbstractNumberHandler<D> numberHandler,
+            DeviationZonesFinder<IP, CS> deviationZonesFinder) {
+        this(collectiveAStar, new WavefrontImpl<>(numberHandler), deviationZonesFinder);
+    }
+
+    public BaseASWPlanner(CollectiveAStar<SS, CS, D> collectiveAStar, Wavefront<SS, CS, D> wavefront,
+            DeviationZonesFinder<IP, CS> deviationZonesFinder) {
+        this(collectiveAStar, wavefront, deviationZonesFinder, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * @param wavefrontExecutor runs the wavefront of every deviation zone as a separate task; the state space and
+     *                          the cost function must then be safe for concurrent use
+     */
+    public BaseASWPlanner(CollectiveAStar<SS, CS, D> collectiveAStar, Wavefront<SS, CS, D> wavefront,
+            DeviationZonesFinder<IP, CS> deviationZonesFinder, Executor wavefrontExecutor) {
+        this.collectiveAStar = collectiveAStar;
+        this.wavefront = wavefront;
         this.deviationZonesFinder = deviationZonesFinder;
+        this.wavefrontExecutor = wavefrontExecutor;
     }
 
     @Override public ASWOutputPlan<SS, CS> calculatePlan(IP inputPlan) {
         return calculatePlanWithBenchmark(inputPlan).getOutputPlan();
     }
 
+    /**
+     * Plan whose collective search stops when any limit of the given control is exceeded or the control is
+     * cancelled, leaving the plan without a collective path.
+     */
+    public ASWOutputPlan<SS, CS> calculatePlan(IP inputPlan, SearchControl searchControl) {
+        return calculatePlanWithBenchmark(inputPlan, searchControl).getOutputPlan();
+    }
+
     public ExtendedOutputPlan<SS, CS> calculatePlanWithBenchmark(IP inputPlan) {
+        return calculatePlanWithBenchmark(inputPlan, SearchControl.unlimited());
+    }
+
+    public ExtendedOutputPlan<SS, CS> calculatePlanWithBenchmark(IP inputPlan, SearchControl searchControl) {
         Benchmark.Builder benchmarkBuilder = Benchmark.newBuilder().algorithmType(AlgorithmType.ASW);
 
         Stopwatch stopwatch = Stopwatch.createStarted();
-        CollectiveAStarResults<CS> results = collectiveAStar.calculatePath(inputPlan, true);
+        CollectiveAStarResults<CS> results = collectiveAStar.calculatePath(inputPlan, true, searchControl);
         benchmarkBuilder.openSetSizeLog(results.getStatistics().getSizeOfOpenSetLog());
+        benchmarkBuilder.expandedNodesCount(results.getStatistics().getExpandedNodesCount());
+        benchmarkBuilder.generatedNodesCount(results.getStatistics().getGeneratedNodesCount());
         benchmarkBuilder.aStarCalculationTimeMs(stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
         stopwatch.reset().start();
-        Set<? extends Subspace<CS>> subspaces = deviationZonesFinder.findDeviationZones(inputPlan, results.getCollectivePath());
+        Set<? extends Subspace<CS>> subspaces = results.getCollectivePath() != null
+                ? deviationZonesFinder.findDeviationZones(inputPlan, results.getCollectivePath())
+                : null;
         benchmarkBuilder.deviationZonesSearchTimeMs(stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
         if (subspaces == null) {
@@ -54,13 +104,24 @@ public class BaseASWPlanner<IP extends InputPlan<SS, CS, D>,
         }
 
         stopwatch.reset().start();
-        Set<SubspacePlan<CS>> devZonePlans = subspaces.stream()
-                                                      .map(devZone -> wavefront.buildPlanForSubspace(
-                                                                  devZone,
-                                                                  inputPlan.getStateSpace(),
-                                                                  inputPlan.getCostFunction()))
-                                                      .collect(toSet());
+        LongAdder cpuTimeNanos = new LongAdder();
+        List<CompletableFuture<SubspacePlan<CS>>> devZonePlanFutures =
+                subspaces.stream()
+                         .map(devZone -> CompletableFuture.supplyAsync(() -> {
+                             long start = currentThreadCpuTimeNanos();
+                             SubspacePlan<CS> plan = wavefront.buildPlanForSubspace(
+                                     devZone,
+                                     inputPlan.getStateSpace(),
+                                     inputPlan.getCostFunction());
+                             cpuTimeNanos.add(currentThreadCpuTimeNanos() - start);
+                             return plan;
+                         }, wavefrontExecutor))
+                         .collect(toList());
+        Set<SubspacePlan<CS>> devZonePlans = devZonePlanFutures.stream()
+                                                               .map(BaseASWPlanner::join)
+                                                               .collect(toSet());
         benchmarkBuilder.wavefrontCalculationTimeMs(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        benchmarkBuilder.wavefrontCpuTimeMs(TimeUnit.NANOSECONDS.toMillis(cpuTimeNanos.sum()));
         stopwatch.stop();
 
         return ExtendedOutputPlan.<SS, CS>newBuilder()
@@ -68,4 +129,27 @@ public class BaseASWPlanner<IP extends InputPlan<SS, CS, D>,
                 .benchmark(benchmarkBuilder.build())
                 .build();
     }
+
+    /**
+     * @return CPU time of the current thread, or the wall clock if the JVM does not measure it
+     */
+    private static long currentThreadCpuTimeNanos() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+                ? THREAD_MX_BEAN.getCurrentThreadCpuTime()
+                : System.nanoTime();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
 }
@@ -1,8 +1,10 @@
 package pl.edu.agh.idziak.asw.impl;
 
 import com.google.common.base.Stopwatch;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStar;
 import pl.edu.agh.idziak.asw.astar.CollectiveAStarImpl;
 import pl.edu.agh.idziak.asw.astar.CollectiveAStarResults;
+import pl.edu.agh.idziak.asw.astar.SearchControl;
 import pl.edu.agh.idziak.asw.common.Benchmark;
 import pl.edu.agh.idziak.asw.model.*;
 
@@ -10,27 +12,53 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Tomasz on 21.02.2017.
+ * <p>
+ * Plans all entities with one collective search, reported in the benchmark as the given algorithm type.
  */
 public class BaseAStarPlanner<IP extends InputPlan<SS, CS, D>,
         SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>>
         implements ASWPlanner<IP, SS, CS> {
 
-    private final CollectiveAStarImpl<SS, CS, D> collectiveAStar;
+    private final CollectiveAStar<SS, CS, D> collectiveAStar;
+    private final AlgorithmType algorithmType;
 
     public BaseAStarPlanner(AbstractNumberHandler<D> numberHandler) {
-        collectiveAStar = new CollectiveAStarImpl<>(numberHandler);
+        this(new CollectiveAStarImpl<>(numberHandler));
+    }
+
+    public BaseAStarPlanner(CollectiveAStar<SS, CS, D> collectiveAStar) {
+        this(collectiveAStar, AlgorithmType.ASTAR_ONLY);
+    }
+
+    public BaseAStarPlanner(CollectiveAStar<SS, CS, D> collectiveAStar, AlgorithmType algorithmType) {
+        this.collectiveAStar = collectiveAStar;
+        this.algorithmType = algorithmType;
     }
 
     @Override public ASWOutputPlan<SS, CS> calculatePlan(IP inputPlan) {
         return calculatePlanWithBenchmark(inputPlan).getOutputPlan();
     }
 
+    /**
+     * Plan whose collective search stops when any limit of the given control is exceeded or the control is
+     * cancelled, leaving the plan without a collective path.
+     */
+    public ASWOutputPlan<SS, CS> calculatePlan(IP inputPlan, SearchControl searchControl) {
+        return calculatePlanWithBenchmark(inputPlan, searchControl).getOutputPlan();
+    }
+
     public ExtendedOutputPlan<SS, CS> calculatePlanWithBenchmark(IP inputPlan) {
-        Benchmark.Builder benchmarkBuilder = Benchmark.newBuilder().algorithmType(AlgorithmType.ASTAR_ONLY);
+        return calculatePlanWithBenchmark(inputPlan, SearchControl.unlimited());
+    }
+
+    public ExtendedOutputPlan<SS, CS> calculatePlanWithBenchmark(IP inputPlan, SearchControl searchControl) {
+        Benchmark.Builder benchmarkBuilder = Benchmark.newBuilder().algorithmType(algorithmType);
 
         Stopwatch stopwatch = Stopwatch.createStarted();
-        CollectiveAStarResults<CS> results = collectiveAStar.calculatePath(inputPlan, true);
+        CollectiveAStarResults<CS> results = collectiveAStar.calculatePath(inputPlan, true, searchControl);
         benchmarkBuilder.openSetSizeLog(results.getStatistics().getSizeOfOpenSetLog());
+        benchmarkBuilder.expandedNodesCount(results.getStatistics().getExpandedNodesCount());
+        benchmarkBuilder.generatedNodesCount(results.getStatistics().getGeneratedNodesCount());
         benchmarkBuilder.aStarCalculationTimeMs(stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
         return ExtendedOutputPlan.<SS, CS>newBuilder()
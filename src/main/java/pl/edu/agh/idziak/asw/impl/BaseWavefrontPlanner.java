@@ -20,7 +20,11 @@ public class BaseWavefrontPlanner<IP extends InputPlan<SS, CS, D>,
     private final Wavefront<SS, CS, D> wavefront;
 
     public BaseWavefrontPlanner(AbstractNumberHandler<D> numberHandler) {
-        wavefront = new WavefrontImpl<>(numberHandler);
+        this(new WavefrontImpl<>(numberHandler));
+    }
+
+    public BaseWavefrontPlanner(Wavefront<SS, CS, D> wavefront) {
+        this.wavefront = wavefront;
     }
 
     @Override public ASWOutputPlan<SS, CS> calculatePlan(IP inputPlan) {
@@ -1,6 +1,6 @@
 package pl.edu.agh.idziak.asw.impl.grid2d;
 
-import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStar;
 import pl.edu.agh.idziak.asw.impl.BaseAStarPlanner;
 
 /**
@@ -8,9 +8,15 @@ import pl.edu.agh.idziak.asw.impl.BaseAStarPlanner;
  */
 public class G2DAStarPlanner extends BaseAStarPlanner<G2DInputPlan, G2DStateSpace, G2DCollectiveState, Double> {
 
-    private static final DoubleHandler DOUBLE_HANDLER = DoubleHandler.getInstance();
-
     public G2DAStarPlanner() {
-        super(DOUBLE_HANDLER);
+        this(G2DSearchEngine.DOUBLE);
+    }
+
+    public G2DAStarPlanner(G2DSearchEngine searchEngine) {
+        this(searchEngine.create());
+    }
+
+    public G2DAStarPlanner(CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> collectiveAStar) {
+        super(collectiveAStar);
     }
 }
@@ -0,0 +1,34 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+/**
+ * Moves of a single entity on a grid. The cells reachable in one step from a cell, the cell itself included when it
+ * is free, are read with {@link #getNeighborCell(int)} at the indices from {@link #firstIndexOf(int)} up to
+ * {@link #endIndexOf(int)}, without allocating anything.
+ */
+public interface G2DAdjacency {
+
+    /**
+     * Largest number of cells reachable from a cell: the cell itself and its four neighbours.
+     */
+    int MAX_MOVES = 5;
+
+    /**
+     * @return index of the first cell reachable from the given cell
+     */
+    int firstIndexOf(int cell);
+
+    /**
+     * @return index following the last cell reachable from the given cell
+     */
+    int endIndexOf(int cell);
+
+    int getNeighborCell(int index);
+
+    default int countNeighborsOf(int cell) {
+        return endIndexOf(cell) - firstIndexOf(cell);
+    }
+
+    int getRows();
+
+    int getCols();
+}
@@ -0,0 +1,43 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Grid backed by an array of cell weights, where a cell is free when its weight is not positive. The array is not
+ * copied and must not be modified afterwards.
+ */
+public final class G2DArrayGrid implements G2DGrid {
+
+    private final int[][] array;
+    private final int cols;
+
+    public G2DArrayGrid(int[][] array) {
+        Preconditions.checkArgument(array.length > 0 && array[0].length > 0, "Non-empty grid required");
+        Preconditions.checkArgument((long) array.length * array[0].length <= Integer.MAX_VALUE, "Grid too large");
+        this.array = array;
+        this.cols = array[0].length;
+    }
+
+    @Override
+    public int countRows() {
+        return array.length;
+    }
+
+    @Override
+    public int countCols() {
+        return cols;
+    }
+
+    @Override
+    public boolean isFree(int row, int col) {
+        return array[row][col] <= 0;
+    }
+
+    /**
+     * @return the backing array
+     */
+    @Override
+    public int[][] toArray() {
+        return array;
+    }
+}
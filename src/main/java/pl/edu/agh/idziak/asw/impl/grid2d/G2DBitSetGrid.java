@@ -0,0 +1,62 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.base.Preconditions;
+
+import java.util.BitSet;
+
+/**
+ * Grid keeping one obstacle bit per cell, so an 8k x 8k map takes 8 MB of heap.
+ */
+public final class G2DBitSetGrid implements G2DGrid {
+
+    private final int rows;
+    private final int cols;
+    private final BitSet obstacles;
+
+    /**
+     * @param obstacles set bits mark obstacles, indexed by row * cols + col; copied
+     */
+    public G2DBitSetGrid(int rows, int cols, BitSet obstacles) {
+        Preconditions.checkArgument(rows > 0 && cols > 0, "Positive grid dimensions required");
+        Preconditions.checkArgument((long) rows * cols <= Integer.MAX_VALUE, "Grid too large");
+        this.rows = rows;
+        this.cols = cols;
+        this.obstacles = (BitSet) obstacles.clone();
+    }
+
+    public static G2DBitSetGrid from(int[][] array) {
+        return from(new G2DArrayGrid(array));
+    }
+
+    public static G2DBitSetGrid from(G2DGrid grid) {
+        BitSet obstacles = new BitSet(grid.countCells());
+        for (int cell = 0; cell < grid.countCells(); cell++) {
+            if (!grid.isFree(cell)) {
+                obstacles.set(cell);
+            }
+        }
+        return new G2DBitSetGrid(grid.countRows(), grid.countCols(), obstacles);
+    }
+
+    @Override
+    public int countRows() {
+        return rows;
+    }
+
+    @Override
+    public int countCols() {
+        return cols;
+    }
+
+    @Override
+    public boolean isFree(int row, int col) {
+        Preconditions.checkElementIndex(row, rows);
+        Preconditions.checkElementIndex(col, cols);
+        return !obstacles.get(row * cols + col);
+    }
+
+    @Override
+    public boolean isFree(int cell) {
+        return !obstacles.get(cell);
+    }
+}
@@ -0,0 +1,21 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import pl.edu.agh.idziak.asw.cbs.ConflictBasedSearch;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.impl.AlgorithmType;
+import pl.edu.agh.idziak.asw.impl.BaseAStarPlanner;
+
+/**
+ * Conflict-Based Search planner for grid plans.
+ */
+public class G2DCBSPlanner extends BaseAStarPlanner<G2DInputPlan, G2DStateSpace, G2DCollectiveState, Double> {
+
+    public G2DCBSPlanner() {
+        this(ConflictBasedSearch.DEFAULT_MAX_CONSTRAINT_TREE_NODES);
+    }
+
+    public G2DCBSPlanner(int maxConstraintTreeNodes) {
+        super(new ConflictBasedSearch<>(DoubleHandler.getInstance(), new G2DInputPlanDecomposer(), maxConstraintTreeNodes),
+                AlgorithmType.CBS);
+    }
+}
@@ -0,0 +1,49 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import java.util.BitSet;
+
+/**
+ * Immutable set of cells kept as one bit per cell of the bounding box of the cells, so a zone costs bits in
+ * proportion to its own size whatever the size of the map.
+ */
+final class G2DCellMask {
+
+    private final int minRow;
+    private final int minCol;
+    private final int height;
+    private final int width;
+    private final BitSet bits;
+
+    private G2DCellMask(Iterable<G2DEntityState> states) {
+        int minRow = Integer.MAX_VALUE, minCol = Integer.MAX_VALUE, maxRow = -1, maxCol = -1;
+        for (G2DEntityState state : states) {
+            minRow = Math.min(minRow, state.getRow());
+            minCol = Math.min(minCol, state.getCol());
+            maxRow = Math.max(maxRow, state.getRow());
+            maxCol = Math.max(maxCol, state.getCol());
+        }
+        this.minRow = minRow;
+        this.minCol = minCol;
+        this.height = Math.max(maxRow - minRow + 1, 0);
+        this.width = Math.max(maxCol - minCol + 1, 0);
+        this.bits = new BitSet(height * width);
+        for (G2DEntityState state : states) {
+            bits.set((state.getRow() - minRow) * width + state.getCol() - minCol);
+        }
+    }
+
+    static G2DCellMask of(Iterable<G2DEntityState> states) {
+        return new G2DCellMask(states);
+    }
+
+    boolean contains(int row, int col) {
+        int localRow = row - minRow;
+        int localCol = col - minCol;
+        return localRow >= 0 && localRow < height && localCol >= 0 && localCol < width
+                && bits.get(localRow * width + localCol);
+    }
+
+    boolean contains(G2DEntityState state) {
+        return contains(state.getRow(), state.getCol());
+    }
+}
@@ -1,54 +1,128 @@
 package pl.edu.agh.idziak.asw.impl.grid2d;
 
-import pl.edu.agh.idziak.asw.model.ImmutableMapCollectiveState;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import pl.edu.agh.idziak.asw.model.CollectiveState;
 
-import java.security.cert.CollectionCertStoreParameters;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.stream.Collectors;
-
-import static java.util.stream.Collectors.toList;
 
 /**
  * Created by Tomasz on 21.02.2017.
+ * <p>
+ * States built by a {@link G2DStateSpace} keep only the cells of their entities, in the order of a shared
+ * {@link G2DStateEncoding}, and build the map of entity states when it is first asked for. Two such states are
+ * compared by their cells, while states kept as maps, or by different encodings, fall back to comparing the maps
+ * of entity states. The hash code is the one of the map in both cases, so that they can be mixed in one table.
  */
-public class G2DCollectiveState extends ImmutableMapCollectiveState<G2DEntityState, Integer> {
+public class G2DCollectiveState implements CollectiveState<G2DEntityState, Integer> {
 
-    private final long identity;
-    private static final int BITS_PER_STATE = 4;
+    private final G2DStateEncoding encoding;
+    private final int[] cells;
+    private final int hashCode;
+    private Map<?, G2DEntityState> entityStates;
 
     public G2DCollectiveState(Map<?, G2DEntityState> entityStates) {
-        super(entityStates);
-        identity = encodeIdentity(entityStates);
-    }
-
-    private long encodeIdentity(Map<?, G2DEntityState> entityStates) {
-        long identity = 0;
-        int[] ints = entityStates.entrySet().stream()
-                .sorted(Comparator.comparing(entry -> entry.getKey().hashCode()))
-                .mapToInt(value -> (value.getValue().getRow() << BITS_PER_STATE)
-                        | value.getValue().getCol())
-                .toArray();
-        for (int anInt : ints) {
-            identity = (identity << (BITS_PER_STATE * 2)) | anInt;
-        }
+        this(entityStates, null);
+    }
+
+    public G2DCollectiveState(Map<?, G2DEntityState> entityStates, G2DStateEncoding encoding) {
+        int[] encodedCells = encoding != null ? encoding.cellsOf(entityStates) : null;
+        this.encoding = encodedCells != null ? encoding : null;
+        this.cells = encodedCells;
+        this.entityStates = encodedCells != null ? null : ImmutableMap.copyOf(entityStates);
+        this.hashCode = entityStates.hashCode();
+    }
 
-//        for (Map.Entry<?, G2DEntityState> entry : entityStates.entrySet()) {
-//            identity = (identity << (BITS_PER_STATE * 2))
-//                    | (entry.getValue().getRow() << BITS_PER_STATE)
-//                    | entry.getValue().getCol();
-//        }
-        return identity;
+    private G2DCollectiveState(G2DStateEncoding encoding, int[] cells) {
+        this.encoding = encoding;
+        this.cells = cells;
+        this.hashCode = encoding.hashCodeOf(cells);
     }
 
     public static G2DCollectiveState from(Map<?, G2DEntityState> entityStateMap) {
         return new G2DCollectiveState(entityStateMap);
     }
 
-//    @Override public boolean equals(Object o) {
-//        return this == o
-//                || !(o == null || getClass() != o.getClass())
-//                && ((G2DCollectiveState) o).identity == identity;
-//    }
+    public static G2DCollectiveState from(Map<?, G2DEntityState> entityStateMap, G2DStateEncoding encoding) {
+        return new G2DCollectiveState(entityStateMap, encoding);
+    }
+
+    /**
+     * @param cells cells of the entities in the order of the encoding, owned by the state from now on
+     */
+    public static G2DCollectiveState of(G2DStateEncoding encoding, int[] cells) {
+        Preconditions.checkArgument(cells.length == encoding.countEntities(), "Cell required for every entity");
+        return new G2DCollectiveState(encoding, cells);
+    }
+
+    @Override
+    public Map<?, G2DEntityState> getEntityStates() {
+        Map<?, G2DEntityState> states = entityStates;
+        if (states == null) {
+            ImmutableMap.Builder<Object, G2DEntityState> builder = ImmutableMap.builder();
+            for (int i = 0; i < cells.length; i++) {
+                builder.put(encoding.getEntities().get(i), entityStateAt(i));
+            }
+            entityStates = states = builder.build();
+        }
+        return states;
+    }
+
+    @Override
+    public G2DEntityState getStateForEntity(Object entity) {
+        if (entityStates != null) {
+            return entityStates.get(entity);
+        }
+        int index = encoding.indexOf(entity);
+        return index >= 0 ? entityStateAt(index) : null;
+    }
+
+    private G2DEntityState entityStateAt(int index) {
+        return encoding.entityStateOf(cells[index]);
+    }
+
+    /**
+     * @return encoding of the state, or null if the state is kept as a map
+     */
+    public G2DStateEncoding getEncoding() {
+        return encoding;
+    }
+
+    public boolean hasPackedIdentity() {
+        return encoding != null;
+    }
+
+    /**
+     * @return cell of the entity at the given index of the encoding
+     */
+    public int getCell(int entityIndex) {
+        Preconditions.checkState(cells != null, "State is kept as a map");
+        return cells[entityIndex];
+    }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass() || hashCode != o.hashCode()) {
+            return false;
+        }
+        G2DCollectiveState other = (G2DCollectiveState) o;
+        if (encoding != null && encoding == other.encoding) {
+            return Arrays.equals(cells, other.cells);
+        }
+        return getEntityStates().equals(other.getEntityStates());
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "CS:" + getEntityStates().toString();
+    }
 }
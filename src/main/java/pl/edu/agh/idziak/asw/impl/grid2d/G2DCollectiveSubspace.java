@@ -3,7 +3,6 @@ package pl.edu.agh.idziak.asw.impl.grid2d;
 import com.google.common.collect.ImmutableSet;
 
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Created by Tomasz on 21.08.2016.
@@ -11,6 +10,8 @@ import java.util.stream.Collectors;
 public class G2DCollectiveSubspace implements G2DSubspace {
 
     private Set<G2DCollectiveState> states;
+    private Set<G2DEntityState> entityStates;
+    private G2DCellMask entityCells;
     private G2DCollectiveState targetState;
 
     public G2DCollectiveSubspace(Set<G2DCollectiveState> states, G2DCollectiveState targetState) {
@@ -18,6 +19,10 @@ public class G2DCollectiveSubspace implements G2DSubspace {
             throw new IllegalArgumentException("State set does not contain target state");
         }
         this.states = ImmutableSet.copyOf(states);
+        ImmutableSet.Builder<G2DEntityState> entityStates = ImmutableSet.builder();
+        this.states.forEach(collectiveState -> entityStates.addAll(collectiveState.getEntityStates().values()));
+        this.entityStates = entityStates.build();
+        this.entityCells = G2DCellMask.of(this.entityStates);
         this.targetState = targetState;
     }
 
@@ -31,9 +36,10 @@ public class G2DCollectiveSubspace implements G2DSubspace {
     }
 
     @Override public Set<G2DEntityState> getContainedEntityStates() {
-        return states.stream()
-                     .flatMap(collectiveState -> collectiveState.getEntityStates().values().stream())
-                     .distinct()
-                     .collect(Collectors.toSet());
+        return entityStates;
+    }
+
+    @Override public boolean containsEntityState(int row, int col) {
+        return entityCells.contains(row, col);
     }
 }
@@ -0,0 +1,75 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Moves of a single entity on a grid, compiled in compressed sparse row form: the cells reachable from every cell
+ * are stored in a single array, at the offsets kept in another. Immutable once built.
+ */
+public final class G2DCompiledAdjacency implements G2DAdjacency {
+
+    private final int rows;
+    private final int cols;
+    private final int[] offsets;
+    private final int[] neighborCells;
+
+    public G2DCompiledAdjacency(G2DGrid grid) {
+        Preconditions.checkArgument((long) grid.countCells() * MAX_MOVES <= Integer.MAX_VALUE, "Grid too large");
+        this.rows = grid.countRows();
+        this.cols = grid.countCols();
+        this.offsets = new int[rows * cols + 1];
+
+        int[] cells = new int[rows * cols * MAX_MOVES];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int cell = row * cols + col;
+                offsets[cell] = count;
+                if (grid.isFree(row, col))
+                    cells[count++] = cell;
+                if (row > 0 && grid.isFree(row - 1, col))
+                    cells[count++] = cell - cols;
+                if (row < rows - 1 && grid.isFree(row + 1, col))
+                    cells[count++] = cell + cols;
+                if (col > 0 && grid.isFree(row, col - 1))
+                    cells[count++] = cell - 1;
+                if (col < cols - 1 && grid.isFree(row, col + 1))
+                    cells[count++] = cell + 1;
+            }
+        }
+        offsets[rows * cols] = count;
+        this.neighborCells = Arrays.copyOf(cells, count);
+    }
+
+    @Override
+    public int firstIndexOf(int cell) {
+        return offsets[cell];
+    }
+
+    @Override
+    public int endIndexOf(int cell) {
+        return offsets[cell + 1];
+    }
+
+    @Override
+    public int getNeighborCell(int index) {
+        return neighborCells[index];
+    }
+
+    @Override
+    public int countNeighborsOf(int cell) {
+        return offsets[cell + 1] - offsets[cell];
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+}
@@ -1,7 +1,10 @@
 package pl.edu.agh.idziak.asw.impl.grid2d;
 
+import com.google.common.base.Preconditions;
 import pl.edu.agh.idziak.asw.common.UntypedTwoMapsIterator;
-import pl.edu.agh.idziak.asw.model.CostFunction;
+import pl.edu.agh.idziak.asw.model.DecomposableCostFunction;
+import pl.edu.agh.idziak.asw.model.DoubleCostFunction;
+import pl.edu.agh.idziak.asw.model.IncrementalCostFunction;
 
 import java.util.Map;
 
@@ -10,10 +13,81 @@ import static java.lang.Math.abs;
 /**
  * Created by Tomasz on 21.02.2017.
  */
-public class G2DCostFunction implements CostFunction<G2DCollectiveState, Double> {
+public class G2DCostFunction implements DecomposableCostFunction<G2DCollectiveState, Double>,
+        IncrementalCostFunction<G2DCollectiveState, Double>, DoubleCostFunction<G2DCollectiveState> {
+
+    private final G2DDistanceTables distanceTables;
+    private final G2DCollectiveState target;
+    private final int[][] targetDistances;
+
+    /**
+     * Cost function estimating distances with the Manhattan metric.
+     */
+    public G2DCostFunction() {
+        this.distanceTables = null;
+        this.target = null;
+        this.targetDistances = null;
+    }
+
+    /**
+     * Cost function estimating distances with shortest paths around obstacles, looked up in the given tables.
+     * Entities which cannot reach their targets get an infinite cost.
+     */
+    public G2DCostFunction(G2DDistanceTables distanceTables) {
+        this.distanceTables = Preconditions.checkNotNull(distanceTables);
+        this.target = null;
+        this.targetDistances = null;
+    }
+
+    private G2DCostFunction(G2DDistanceTables distanceTables, G2DCollectiveState target, int[][] targetDistances) {
+        this.distanceTables = distanceTables;
+        this.target = target;
+        this.targetDistances = targetDistances;
+    }
+
+    /**
+     * @return equal cost function which looks up the distances to the given encoded target state in the tables of its
+     * entities, resolved once, instead of in the shared tables of the grid
+     */
+    G2DCostFunction withTarget(G2DCollectiveState target) {
+        int[][] tables = distanceTables != null ? distanceTables.tablesOf(target) : null;
+        return tables != null ? new G2DCostFunction(distanceTables, target, tables) : this;
+    }
+
+    /**
+     * @return distances to the cells of the entities of the given state, indexed like its encoding, if this function
+     * was bound to it with {@link #withTarget}, null otherwise
+     */
+    int[][] getTargetDistances(G2DCollectiveState targetState) {
+        return targetState == target ? targetDistances : null;
+    }
+
+    /**
+     * @return cost function looking up shortest paths around obstacles, or estimating distances with the Manhattan
+     * metric on grids too large for {@link G2DDistanceTables}
+     */
+    public static G2DCostFunction withTrueDistances(G2DStateSpace stateSpace) {
+        if (!G2DDistanceTables.supports(stateSpace.getGrid())) {
+            return new G2DCostFunction();
+        }
+        return new G2DCostFunction(G2DDistanceTables.forStateSpace(stateSpace));
+    }
+
+    public G2DDistanceTables getDistanceTables() {
+        return distanceTables;
+    }
 
     @Override
     public Double getHeuristicCost(G2DCollectiveState start, G2DCollectiveState end) {
+        return getHeuristicCostAsDouble(start, end);
+    }
+
+    @Override
+    public double getHeuristicCostAsDouble(G2DCollectiveState start, G2DCollectiveState end) {
+        G2DStateEncoding encoding = start.getEncoding();
+        if (encoding != null && encoding == end.getEncoding()) {
+            return getHeuristicCost(encoding, start, end);
+        }
         Map<?, G2DEntityState> startStates = start.getEntityStates();
         Map<?, G2DEntityState> endStates = end.getEntityStates();
 
@@ -23,25 +97,105 @@ public class G2DCostFunction implements CostFunction<G2DCollectiveState, Double>
 
         while (it.hasNext()) {
             it.next();
-            sum += getHeuristicCost(it.getFirstValue(), it.getSecondValue());
+            G2DEntityState startState = it.getFirstValue();
+            G2DEntityState endState = it.getSecondValue();
+            sum += getHeuristicCost(startState.getRow(), startState.getCol(), endState.getRow(), endState.getCol());
         }
 
         return sum;
     }
 
+    private double getHeuristicCost(G2DStateEncoding encoding, G2DCollectiveState start, G2DCollectiveState end) {
+        int[][] distances = getTargetDistances(end);
+        double sum = 0;
+        for (int i = 0; i < encoding.countEntities(); i++) {
+            int startCell = start.getCell(i);
+            if (distances != null) {
+                sum += costOfTableDistance(distances[i][startCell]);
+                continue;
+            }
+            int endCell = end.getCell(i);
+            sum += getHeuristicCost(encoding.rowOf(startCell), encoding.colOf(startCell),
+                    encoding.rowOf(endCell), encoding.colOf(endCell));
+        }
+        return sum;
+    }
+
+    @Override
+    public Double getHeuristicCostOfNeighbor(G2DCollectiveState state, Double stateCost, G2DCollectiveState neighbor,
+                                             G2DCollectiveState goal) {
+        return getHeuristicCostOfNeighborAsDouble(state, stateCost, neighbor, goal);
+    }
+
+    /**
+     * Adds the change of the costs of the entities which moved to the cost of the state, when all three states share
+     * an encoding, and computes the cost from scratch otherwise.
+     */
+    @Override
+    public double getHeuristicCostOfNeighborAsDouble(G2DCollectiveState state, double stateCost,
+                                                     G2DCollectiveState neighbor, G2DCollectiveState goal) {
+        G2DStateEncoding encoding = state.getEncoding();
+        if (encoding == null || encoding != neighbor.getEncoding() || encoding != goal.getEncoding()
+                || Double.isInfinite(stateCost)) {
+            return getHeuristicCostAsDouble(neighbor, goal);
+        }
+        int[][] distances = getTargetDistances(goal);
+        double cost = stateCost;
+        for (int i = 0; i < encoding.countEntities(); i++) {
+            int stateCell = state.getCell(i);
+            int neighborCell = neighbor.getCell(i);
+            if (stateCell != neighborCell && distances != null) {
+                cost += costOfTableDistance(distances[i][neighborCell]) - costOfTableDistance(distances[i][stateCell]);
+            } else if (stateCell != neighborCell) {
+                int goalCell = goal.getCell(i);
+                int goalRow = encoding.rowOf(goalCell);
+                int goalCol = encoding.colOf(goalCell);
+                cost += getHeuristicCost(encoding.rowOf(neighborCell), encoding.colOf(neighborCell), goalRow, goalCol)
+                        - getHeuristicCost(encoding.rowOf(stateCell), encoding.colOf(stateCell), goalRow, goalCol);
+            }
+        }
+        return cost;
+    }
+
+    @Override
+    public Double getEntityHeuristicCost(Object entity, G2DCollectiveState start, G2DCollectiveState end) {
+        G2DEntityState startState = start.getStateForEntity(entity);
+        G2DEntityState endState = end.getStateForEntity(entity);
+        return getHeuristicCost(startState.getRow(), startState.getCol(), endState.getRow(), endState.getCol());
+    }
+
     public static Double getHeuristicCost(G2DEntityState start, G2DEntityState end) {
-        int startRow = start.get().get(0);
-        int startCol = start.get().get(1);
-        int endRow = end.get().get(0);
-        int endCol = end.get().get(1);
+        return costOfManhattanDistance(start.getRow(), start.getCol(), end.getRow(), end.getCol());
+    }
 
+    public double getHeuristicCost(int startRow, int startCol, int endRow, int endCol) {
         int manhattanDistance = abs(startRow - endRow) + abs(startCol - endCol);
 
-        if (manhattanDistance == 0)
+        // single moves cost the same in both modes
+        if (distanceTables == null || manhattanDistance <= 1)
+            return costOfDistance(manhattanDistance);
+
+        return costOfTableDistance(distanceTables.getDistance(startRow, startCol, endRow, endCol));
+    }
+
+    /**
+     * Cost of a distance looked up in {@link G2DDistanceTables}; within one move it equals the Manhattan distance,
+     * so the cost is the same as {@link #getHeuristicCost(int, int, int, int)} gives.
+     */
+    static double costOfTableDistance(int distance) {
+        return distance == G2DDistanceTables.UNREACHABLE ? Double.POSITIVE_INFINITY : costOfDistance(distance);
+    }
+
+    private static double costOfManhattanDistance(int startRow, int startCol, int endRow, int endCol) {
+        return costOfDistance(abs(startRow - endRow) + abs(startCol - endCol));
+    }
+
+    private static double costOfDistance(int distance) {
+        if (distance == 0)
             return 0.5d;
-        else if (manhattanDistance == 1)
+        else if (distance == 1)
             return 1d;
         else
-            return manhattanDistance * 1.0001d;
+            return distance * 1.0001d;
     }
 }
@@ -0,0 +1,148 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shortest path lengths to target cells of a grid, taking obstacles into account. The table of a target cell
+ * is computed with a backward breadth-first search the first time it is needed and kept in a flat array indexed
+ * by {@code row * cols + col}. Tables are shared by all plans on the same grid, or on the same grid array, so the
+ * grid must not be modified afterwards.
+ * <p>
+ * Every table takes {@code 4 * rows * cols} bytes of heap and is kept as long as the grid, one per distinct target
+ * cell. Tables are therefore only built for grids of up to {@link G2DStateSpace#MAX_COMPILED_CELLS} cells; larger
+ * grids, such as memory-mapped ones, are meant to be searched with the Manhattan heuristic.
+ */
+public final class G2DDistanceTables {
+
+    public static final int UNREACHABLE = -1;
+
+    /**
+     * Keyed by the backing array of array grids and by the grid itself otherwise.
+     */
+    private static final LoadingCache<Object, G2DDistanceTables> TABLES_BY_GRID =
+            CacheBuilder.newBuilder()
+                        .weakKeys()
+                        .build(new CacheLoader<Object, G2DDistanceTables>() {
+                            @Override public G2DDistanceTables load(Object key) {
+                                return new G2DDistanceTables(key instanceof int[][]
+                                        ? new G2DArrayGrid((int[][]) key)
+                                        : (G2DGrid) key);
+                            }
+                        });
+
+    private final G2DGrid grid;
+    private final int rows;
+    private final int cols;
+    private final Map<Integer, int[]> tablesByTargetCell = new ConcurrentHashMap<>();
+
+    private G2DDistanceTables(G2DGrid grid) {
+        this.grid = grid;
+        this.rows = grid.countRows();
+        this.cols = grid.countCols();
+    }
+
+    /**
+     * @return distance tables of the given grid array, shared by every caller passing the same array instance
+     */
+    public static G2DDistanceTables forGrid(int[][] grid) {
+        checkSupported(new G2DArrayGrid(grid));
+        return TABLES_BY_GRID.getUnchecked(grid);
+    }
+
+    /**
+     * @return distance tables of the given grid, shared by every caller passing the same grid instance
+     */
+    public static G2DDistanceTables forGrid(G2DGrid grid) {
+        checkSupported(grid);
+        return TABLES_BY_GRID.getUnchecked(grid instanceof G2DArrayGrid ? grid.toArray() : grid);
+    }
+
+    public static G2DDistanceTables forStateSpace(G2DStateSpace stateSpace) {
+        return forGrid(stateSpace.getGrid());
+    }
+
+    /**
+     * @return true if the grid is small enough for distance tables to be built for it
+     */
+    public static boolean supports(G2DGrid grid) {
+        return grid.countCells() <= G2DStateSpace.MAX_COMPILED_CELLS;
+    }
+
+    private static void checkSupported(G2DGrid grid) {
+        Preconditions.checkArgument(supports(grid),
+                "Distance tables are not kept for grids of more than %s cells", G2DStateSpace.MAX_COMPILED_CELLS);
+    }
+
+    /**
+     * @return number of moves from the start cell to the end cell or {@link #UNREACHABLE}
+     */
+    public int getDistance(int startRow, int startCol, int endRow, int endCol) {
+        return getTable(endRow * cols + endCol)[startRow * cols + startCol];
+    }
+
+    /**
+     * @return tables of the targets of the entities of the given encoded state, indexed like its encoding, or null
+     * if the state is not encoded on a grid of the size of this one
+     */
+    int[][] tablesOf(G2DCollectiveState targetState) {
+        G2DStateEncoding encoding = targetState.getEncoding();
+        if (encoding == null || encoding.getRows() != rows || encoding.getCols() != cols) {
+            return null;
+        }
+        int[][] tables = new int[encoding.countEntities()][];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = getTable(targetState.getCell(i));
+        }
+        return tables;
+    }
+
+    private int[] getTable(int targetCell) {
+        return tablesByTargetCell.computeIfAbsent(targetCell, this::computeTable);
+    }
+
+    private int[] computeTable(int targetCell) {
+        int[] distances = new int[rows * cols];
+        Arrays.fill(distances, UNREACHABLE);
+        if (!isFree(targetCell)) {
+            return distances;
+        }
+
+        int[] queue = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        distances[targetCell] = 0;
+        queue[tail++] = targetCell;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int row = cell / cols;
+            int col = cell % cols;
+            int nextDistance = distances[cell] + 1;
+
+            if (row > 0) tail = visit(distances, queue, tail, cell - cols, nextDistance);
+            if (row < rows - 1) tail = visit(distances, queue, tail, cell + cols, nextDistance);
+            if (col > 0) tail = visit(distances, queue, tail, cell - 1, nextDistance);
+            if (col < cols - 1) tail = visit(distances, queue, tail, cell + 1, nextDistance);
+        }
+        return distances;
+    }
+
+    private int visit(int[] distances, int[] queue, int tail, int cell, int distance) {
+        if (distances[cell] == UNREACHABLE && isFree(cell)) {
+            distances[cell] = distance;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    private boolean isFree(int cell) {
+        return grid.isFree(cell);
+    }
+}
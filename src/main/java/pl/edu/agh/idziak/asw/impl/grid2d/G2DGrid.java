@@ -0,0 +1,35 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+/**
+ * Read-only storage of the cells of a grid. Cells are numbered row * cols + col. Implementations must be safe for
+ * concurrent reads, as one grid is shared by all planners working on it.
+ */
+public interface G2DGrid {
+
+    int countRows();
+
+    int countCols();
+
+    boolean isFree(int row, int col);
+
+    default boolean isFree(int cell) {
+        return isFree(cell / countCols(), cell % countCols());
+    }
+
+    default int countCells() {
+        return countRows() * countCols();
+    }
+
+    /**
+     * @return weights of the cells, 0 for free cells and 1 for obstacles unless the grid stores other weights
+     */
+    default int[][] toArray() {
+        int[][] array = new int[countRows()][countCols()];
+        for (int row = 0; row < array.length; row++) {
+            for (int col = 0; col < array[row].length; col++) {
+                array[row][col] = isFree(row, col) ? 0 : 1;
+            }
+        }
+        return array;
+    }
+}
@@ -0,0 +1,82 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Moves of a single entity read directly from the grid, for grids too large to compile into a
+ * {@link G2DCompiledAdjacency}. Every cell owns {@link #MAX_MOVES} consecutive indices, of which the leading ones
+ * are used, and every query checks the cells around it again.
+ */
+public final class G2DGridAdjacency implements G2DAdjacency {
+
+    private final G2DGrid grid;
+    private final int rows;
+    private final int cols;
+
+    public G2DGridAdjacency(G2DGrid grid) {
+        Preconditions.checkArgument((long) grid.countCells() * MAX_MOVES <= Integer.MAX_VALUE, "Grid too large");
+        this.grid = grid;
+        this.rows = grid.countRows();
+        this.cols = grid.countCols();
+    }
+
+    @Override
+    public int firstIndexOf(int cell) {
+        return cell * MAX_MOVES;
+    }
+
+    @Override
+    public int endIndexOf(int cell) {
+        int row = cell / cols;
+        int col = cell % cols;
+        int count = 0;
+
+        if (grid.isFree(row, col))
+            count++;
+        if (row > 0 && grid.isFree(row - 1, col))
+            count++;
+        if (row < rows - 1 && grid.isFree(row + 1, col))
+            count++;
+        if (col > 0 && grid.isFree(row, col - 1))
+            count++;
+        if (col < cols - 1 && grid.isFree(row, col + 1))
+            count++;
+        return cell * MAX_MOVES + count;
+    }
+
+    @Override
+    public int getNeighborCell(int index) {
+        return neighborCell(index / MAX_MOVES, index % MAX_MOVES);
+    }
+
+    /**
+     * @return n-th free cell reachable from the given cell, in the order of {@link G2DCompiledAdjacency}, or -1
+     */
+    private int neighborCell(int cell, int n) {
+        int row = cell / cols;
+        int col = cell % cols;
+        int found = 0;
+
+        if (grid.isFree(row, col) && found++ == n)
+            return cell;
+        if (row > 0 && grid.isFree(row - 1, col) && found++ == n)
+            return cell - cols;
+        if (row < rows - 1 && grid.isFree(row + 1, col) && found++ == n)
+            return cell + cols;
+        if (col > 0 && grid.isFree(row, col - 1) && found++ == n)
+            return cell - 1;
+        if (col < cols - 1 && grid.isFree(row, col + 1) && found == n)
+            return cell + 1;
+        return -1;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+}
@@ -1,6 +1,8 @@
 package pl.edu.agh.idziak.asw.impl.grid2d;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import pl.edu.agh.idziak.asw.model.InputPlan;
 
 import java.util.Set;
@@ -20,11 +22,51 @@ public class G2DInputPlan implements InputPlan<G2DStateSpace, G2DCollectiveState
                         G2DStateSpace globalStateSpace,
                         G2DCollectiveState initialState,
                         G2DCollectiveState targetState) {
+        this(entities, globalStateSpace, initialState, targetState, new G2DCostFunction());
+    }
+
+    /**
+     * The cost function is bound to the target state, so that distances to it are looked up without going through
+     * the tables shared by all plans.
+     */
+    public G2DInputPlan(Set<?> entities,
+                        G2DStateSpace globalStateSpace,
+                        G2DCollectiveState initialState,
+                        G2DCollectiveState targetState,
+                        G2DCostFunction costFunction) {
         this.entities = entities;
         this.globalStateSpace = globalStateSpace;
-        this.targetState = targetState;
-        this.initialState = initialState;
-        this.costFunction = new G2DCostFunction();
+        this.targetState = encode(globalStateSpace, entities, targetState);
+        this.initialState = encode(globalStateSpace, entities, initialState);
+        this.costFunction = this.targetState != null
+                ? Preconditions.checkNotNull(costFunction).withTarget(this.targetState)
+                : Preconditions.checkNotNull(costFunction);
+    }
+
+    /**
+     * Keeps the state as the cells of the entities, in the order of the set of entities, so that all states
+     * reached from it share the encoding.
+     */
+    private static G2DCollectiveState encode(G2DStateSpace stateSpace, Set<?> entities,
+                                             G2DCollectiveState collectiveState) {
+        if (stateSpace == null || collectiveState == null) {
+            return collectiveState;
+        }
+        G2DCollectiveState encoded = entities != null
+                ? stateSpace.encode(collectiveState, ImmutableList.copyOf(entities))
+                : collectiveState;
+        return stateSpace.encode(encoded);
+    }
+
+    /**
+     * @return plan whose heuristic follows shortest paths around the obstacles of the state space
+     */
+    public static G2DInputPlan withTrueDistanceHeuristic(Set<?> entities,
+                                                         G2DStateSpace globalStateSpace,
+                                                         G2DCollectiveState initialState,
+                                                         G2DCollectiveState targetState) {
+        return new G2DInputPlan(entities, globalStateSpace, initialState, targetState,
+                G2DCostFunction.withTrueDistances(globalStateSpace));
     }
 
     @Override
@@ -0,0 +1,49 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.collect.ImmutableMap;
+import pl.edu.agh.idziak.asw.model.InputPlan;
+import pl.edu.agh.idziak.asw.model.InputPlanDecomposer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Restricts grid plans to groups of entities and joins the collective states of disjoint groups.
+ */
+public class G2DInputPlanDecomposer implements InputPlanDecomposer<G2DStateSpace, G2DCollectiveState, Double> {
+
+    @Override
+    public G2DInputPlan restrictTo(InputPlan<G2DStateSpace, G2DCollectiveState, Double> inputPlan, Set<?> entities) {
+        return new G2DInputPlan(entities,
+                inputPlan.getStateSpace(),
+                restrictTo(inputPlan.getInitialCollectiveState(), entities),
+                restrictTo(inputPlan.getTargetCollectiveState(), entities),
+                costFunctionOf(inputPlan));
+    }
+
+    private static G2DCostFunction costFunctionOf(InputPlan<G2DStateSpace, G2DCollectiveState, Double> inputPlan) {
+        return inputPlan.getCostFunction() instanceof G2DCostFunction
+                ? (G2DCostFunction) inputPlan.getCostFunction()
+                : new G2DCostFunction();
+    }
+
+    private static G2DCollectiveState restrictTo(G2DCollectiveState collectiveState, Set<?> entities) {
+        ImmutableMap.Builder<Object, G2DEntityState> builder = ImmutableMap.builder();
+        for (Object entity : entities) {
+            builder.put(entity, collectiveState.getStateForEntity(entity));
+        }
+        return G2DCollectiveState.from(builder.build());
+    }
+
+    @Override
+    public G2DCollectiveState combine(List<G2DCollectiveState> collectiveStates) {
+        ImmutableMap.Builder<Object, G2DEntityState> builder = ImmutableMap.builder();
+        for (G2DCollectiveState collectiveState : collectiveStates) {
+            for (Map.Entry<?, G2DEntityState> entry : collectiveState.getEntityStates().entrySet()) {
+                builder.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return G2DCollectiveState.from(builder.build());
+    }
+}
@@ -0,0 +1,97 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Grid read from a file mapped into memory, so that planners in many threads or processes share one copy of the map
+ * in the page cache and opening even a large map takes no time. The file holds a header of three ints (magic
+ * number, rows, cols) followed by one obstacle bit per cell, indexed by row * cols + col, the lowest bit of each
+ * byte first. Files are written with {@link #write(G2DGrid, Path)}.
+ */
+public final class G2DMappedGrid implements G2DGrid {
+
+    private static final int MAGIC = 0x47324447;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+    private final int rows;
+    private final int cols;
+    private final ByteBuffer buffer;
+
+    private G2DMappedGrid(int rows, int cols, ByteBuffer buffer) {
+        this.rows = rows;
+        this.cols = cols;
+        this.buffer = buffer;
+    }
+
+    public static G2DMappedGrid open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Preconditions.checkArgument(channel.size() >= HEADER_BYTES, "Not a grid file: %s", path);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            Preconditions.checkArgument(buffer.getInt(0) == MAGIC, "Not a grid file: %s", path);
+            int rows = buffer.getInt(Integer.BYTES);
+            int cols = buffer.getInt(2 * Integer.BYTES);
+            Preconditions.checkArgument(rows > 0 && cols > 0 && (long) rows * cols <= Integer.MAX_VALUE,
+                    "Invalid grid dimensions %s x %s in %s", rows, cols, path);
+            Preconditions.checkArgument(channel.size() >= HEADER_BYTES + bytesFor(rows * cols),
+                    "Grid file %s is truncated", path);
+            return new G2DMappedGrid(rows, cols, buffer);
+        }
+    }
+
+    /**
+     * Writes the obstacles of the grid to a file which can be opened with {@link #open(Path)}.
+     */
+    public static void write(G2DGrid grid, Path path) throws IOException {
+        int cells = grid.countCells();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + bytesFor(cells));
+            buffer.putInt(MAGIC).putInt(grid.countRows()).putInt(grid.countCols());
+
+            for (int cell = 0; cell < cells; cell += Byte.SIZE) {
+                int bits = 0;
+                for (int bit = 0; bit < Byte.SIZE && cell + bit < cells; bit++) {
+                    if (!grid.isFree(cell + bit)) {
+                        bits |= 1 << bit;
+                    }
+                }
+                buffer.put((byte) bits);
+            }
+            buffer.force();
+        }
+    }
+
+    private static long bytesFor(int cells) {
+        return (cells + 7L) / Byte.SIZE;
+    }
+
+    @Override
+    public int countRows() {
+        return rows;
+    }
+
+    @Override
+    public int countCols() {
+        return cols;
+    }
+
+    @Override
+    public boolean isFree(int row, int col) {
+        Preconditions.checkElementIndex(row, rows);
+        Preconditions.checkElementIndex(col, cols);
+        return isFree(row * cols + col);
+    }
+
+    @Override
+    public boolean isFree(int cell) {
+        return (buffer.get(HEADER_BYTES + (cell >>> 3)) & (1 << (cell & 7))) == 0;
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Set;
 public class G2DNonCollectiveSubspace implements G2DSubspace {
 
     private Set<G2DEntityState> states;
+    private G2DCellMask cells;
     private G2DCollectiveState targetState;
 
     public G2DNonCollectiveSubspace(Set<G2DEntityState> states, G2DCollectiveState targetState) {
@@ -17,12 +18,28 @@ public class G2DNonCollectiveSubspace implements G2DSubspace {
             throw new IllegalArgumentException("States set does not contain all target states");
         }
         this.states = ImmutableSet.copyOf(states);
+        this.cells = G2DCellMask.of(this.states);
         this.targetState = targetState;
     }
 
     @Override
     public boolean contains(G2DCollectiveState collectiveState) {
-        return states.containsAll(collectiveState.getEntityStates().values());
+        G2DStateEncoding encoding = collectiveState.getEncoding();
+        if (encoding != null) {
+            for (int i = 0; i < encoding.countEntities(); i++) {
+                int cell = collectiveState.getCell(i);
+                if (!cells.contains(encoding.rowOf(cell), encoding.colOf(cell))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (G2DEntityState entityState : collectiveState.getEntityStates().values()) {
+            if (!cells.contains(entityState)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public G2DCollectiveState getTargetState() {
@@ -32,4 +49,12 @@ public class G2DNonCollectiveSubspace implements G2DSubspace {
     @Override public Set<G2DEntityState> getContainedEntityStates() {
         return states;
     }
+
+    @Override public boolean containsEntityState(int row, int col) {
+        return cells.contains(row, col);
+    }
+
+    @Override public boolean isProductOfEntityStates() {
+        return true;
+    }
 }
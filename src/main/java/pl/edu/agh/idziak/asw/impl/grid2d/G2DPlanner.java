@@ -1,18 +1,36 @@
 package pl.edu.agh.idziak.asw.impl.grid2d;
 
-import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStar;
 import pl.edu.agh.idziak.asw.impl.BaseASWPlanner;
 import pl.edu.agh.idziak.asw.model.DeviationZonesFinder;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Created by Tomasz on 09.07.2016.
  */
 public class G2DPlanner extends BaseASWPlanner<G2DInputPlan, G2DStateSpace, G2DCollectiveState, Double> {
 
-    private static final DoubleHandler DOUBLE_HANDLER = DoubleHandler.getInstance();
     private static final DeviationZonesFinder<G2DInputPlan, G2DCollectiveState> DEVIATION_ZONES_FINDER = new G2DNonCollectiveDevZonesFinder();
 
     public G2DPlanner() {
-        super(DOUBLE_HANDLER, DEVIATION_ZONES_FINDER);
+        this(G2DSearchEngine.DOUBLE);
+    }
+
+    public G2DPlanner(G2DSearchEngine searchEngine) {
+        this(searchEngine.create());
+    }
+
+    /**
+     * Planner building the plans of the deviation zones in the common fork-join pool.
+     */
+    public G2DPlanner(CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> collectiveAStar) {
+        this(collectiveAStar, ForkJoinPool.commonPool());
+    }
+
+    public G2DPlanner(CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> collectiveAStar,
+                      Executor wavefrontExecutor) {
+        super(collectiveAStar, new G2DSingleEntityWavefront(), DEVIATION_ZONES_FINDER, wavefrontExecutor);
     }
 }
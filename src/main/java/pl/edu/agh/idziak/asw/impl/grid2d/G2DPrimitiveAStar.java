@@ -0,0 +1,454 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStar;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarResults;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarStats;
+import pl.edu.agh.idziak.asw.astar.SearchControl;
+import pl.edu.agh.idziak.asw.astar.TerminationReason;
+import pl.edu.agh.idziak.asw.model.CollectivePath;
+import pl.edu.agh.idziak.asw.model.CostFunction;
+import pl.edu.agh.idziak.asw.model.ImmutableCollectivePath;
+import pl.edu.agh.idziak.asw.model.InputPlan;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Collective A* specialised for 2D grids. A collective state is expanded as a row of cell indices
+ * (row * cols + col, one per entity in the order of {@link InputPlan#getEntities()}), stored packed into longs
+ * by the {@link G2DStateEncoding} of the entities in flat primitive arrays and addressed by an int node id, so
+ * the search does not allocate state objects, boxed scores or map entries per visited node.
+ */
+public class G2DPrimitiveAStar implements CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> {
+
+    @Override
+    public CollectiveAStarResults<G2DCollectiveState> calculatePath(
+            InputPlan<G2DStateSpace, G2DCollectiveState, Double> inputPlan, boolean gatherStats,
+            SearchControl searchControl) {
+        Accumulator acc = new Accumulator(inputPlan, gatherStats);
+
+        long[] startKey = acc.nodes.newKey();
+        acc.nodes.pack(acc.startCells, startKey);
+        int startNode = acc.nodes.add(startKey, NodeTable.hash(startKey));
+        acc.nodes.open(startNode, NodeTable.NO_NODE, 0, heuristicCostToGoal(acc, acc.startCells));
+
+        int goalNode = findPath(acc, searchControl);
+
+        CollectivePath<G2DCollectiveState> collectivePath =
+                goalNode != NodeTable.NO_NODE ? reconstructPath(acc, goalNode) : null;
+
+        return new CollectiveAStarResults<>(collectivePath, acc.stats, acc.terminationReason);
+    }
+
+    private int findPath(Accumulator acc, SearchControl searchControl) {
+        long[] goalKey = acc.nodes.newKey();
+        acc.nodes.pack(acc.goalCells, goalKey);
+        long goalHash = NodeTable.hash(goalKey);
+
+        while (!acc.nodes.isOpenSetEmpty()) {
+
+            TerminationReason limitReason =
+                    searchControl.check(acc.stats.getExpandedNodesCount(), acc.nodes.openSetSize());
+            if (limitReason != null) {
+                acc.terminationReason = limitReason;
+                return NodeTable.NO_NODE;
+            }
+
+            if (acc.gatherStats) {
+                acc.stats.logSizeOfOpenSet(acc.nodes.openSetSize());
+            }
+
+            int current = acc.nodes.pollFirst();
+
+            if (acc.nodes.matches(current, goalKey, goalHash)) {
+                acc.terminationReason = TerminationReason.GOAL_REACHED;
+                return current;
+            }
+
+            acc.stats.countExpandedNode();
+            iterateNeighbors(acc, current);
+        }
+        acc.terminationReason = TerminationReason.OPEN_SET_EXHAUSTED;
+        return NodeTable.NO_NODE;
+    }
+
+    private void iterateNeighbors(Accumulator acc, int current) {
+        acc.nodes.copyCells(current, acc.currentCells);
+        generateNeighbors(acc, current, 0, 0);
+    }
+
+    private void generateNeighbors(Accumulator acc, int current, int entityIndex, int movedEntities) {
+        if (entityIndex == acc.entityCount) {
+            if (movedEntities > 0) {
+                visitNeighbor(acc, current);
+            }
+            return;
+        }
+
+        int currentCell = acc.currentCells[entityIndex];
+        int end = acc.adjacency.endIndexOf(currentCell);
+
+        for (int m = acc.adjacency.firstIndexOf(currentCell); m < end; m++) {
+            int targetCell = acc.adjacency.getNeighborCell(m);
+            if (G2DStateSpace.collidesWithPrecedingEntities(
+                    acc.currentCells, acc.neighborCells, entityIndex, targetCell)) {
+                continue;
+            }
+            acc.neighborCells[entityIndex] = targetCell;
+            generateNeighbors(acc, current, entityIndex + 1,
+                    targetCell == currentCell ? movedEntities : movedEntities + 1);
+        }
+    }
+
+    private void visitNeighbor(Accumulator acc, int current) {
+        acc.stats.countGeneratedNodes(1);
+        int[] neighborCells = acc.neighborCells;
+        long[] neighborKey = acc.neighborKey;
+        acc.nodes.pack(neighborCells, neighborKey);
+        long hash = NodeTable.hash(neighborKey);
+        int neighbor = acc.nodes.find(neighborKey, hash);
+
+        if (neighbor != NodeTable.NO_NODE && acc.nodes.isClosed(neighbor)) {
+            return;
+        }
+
+        double tentativeGScore = acc.nodes.getGScore(current) + stepCost(acc, acc.currentCells, neighborCells);
+
+        if (neighbor == NodeTable.NO_NODE) {
+            neighbor = acc.nodes.add(neighborKey, hash);
+        } else if (tentativeGScore >= acc.nodes.getGScore(neighbor)) {
+            return;
+        }
+
+        acc.nodes.open(neighbor, current, tentativeGScore,
+                tentativeGScore + heuristicCostToGoal(acc, neighborCells));
+    }
+
+    private static double stepCost(Accumulator acc, int[] fromCells, int[] toCells) {
+        double sum = 0;
+        for (int i = 0; i < acc.entityCount; i++) {
+            sum += entityCost(acc, fromCells[i], toCells[i]);
+        }
+        return sum;
+    }
+
+    private static double heuristicCostToGoal(Accumulator acc, int[] cells) {
+        if (acc.goalDistances == null) {
+            return stepCost(acc, cells, acc.goalCells);
+        }
+        double sum = 0;
+        for (int i = 0; i < acc.entityCount; i++) {
+            sum += G2DCostFunction.costOfTableDistance(acc.goalDistances[i][cells[i]]);
+        }
+        return sum;
+    }
+
+    private static double entityCost(Accumulator acc, int fromCell, int toCell) {
+        int cols = acc.cols;
+        return acc.costFunction.getHeuristicCost(fromCell / cols, fromCell % cols, toCell / cols, toCell % cols);
+    }
+
+    private CollectivePath<G2DCollectiveState> reconstructPath(Accumulator acc, int goalNode) {
+        List<G2DCollectiveState> reconstructedPath = new LinkedList<>();
+        int[] cells = new int[acc.entityCount];
+
+        for (int node = goalNode; node != NodeTable.NO_NODE; node = acc.nodes.getParent(node)) {
+            acc.nodes.copyCells(node, cells);
+            reconstructedPath.add(0, toCollectiveState(acc, cells));
+        }
+        return ImmutableCollectivePath.from(reconstructedPath);
+    }
+
+    private static G2DCollectiveState toCollectiveState(Accumulator acc, int[] cells) {
+        if (acc.encoding != null) {
+            return G2DCollectiveState.of(acc.encoding, cells.clone());
+        }
+        ImmutableMap.Builder<Object, G2DEntityState> builder = ImmutableMap.builder();
+        for (int i = 0; i < acc.entityCount; i++) {
+            builder.put(acc.entities.get(i), G2DEntityState.of(cells[i] / acc.cols, cells[i] % acc.cols));
+        }
+        return G2DCollectiveState.from(builder.build());
+    }
+
+    private static int[] toCells(List<Object> entities, G2DCollectiveState collectiveState, int cols) {
+        int[] cells = new int[entities.size()];
+        for (int i = 0; i < cells.length; i++) {
+            G2DEntityState entityState = collectiveState.getStateForEntity(entities.get(i));
+            if (entityState == null) {
+                throw new IllegalArgumentException("No state for entity " + entities.get(i) + " in " + collectiveState);
+            }
+            cells[i] = entityState.getRow() * cols + entityState.getCol();
+        }
+        return cells;
+    }
+
+    private static class Accumulator {
+
+        private final G2DAdjacency adjacency;
+        private final int cols;
+        private final List<Object> entities;
+        private final G2DStateEncoding encoding;
+        private final int entityCount;
+        private final G2DCostFunction costFunction;
+        private final int[] startCells;
+        private final int[] goalCells;
+        private final int[][] goalDistances;
+        private final NodeTable nodes;
+        private final int[] currentCells;
+        private final int[] neighborCells;
+        private final long[] neighborKey;
+        private final CollectiveAStarStats stats;
+        private TerminationReason terminationReason;
+        private final boolean gatherStats;
+
+        Accumulator(InputPlan<G2DStateSpace, G2DCollectiveState, Double> inputPlan, boolean gatherStats) {
+            G2DStateSpace stateSpace = inputPlan.getStateSpace();
+            adjacency = stateSpace.getAdjacency();
+            cols = stateSpace.countCols();
+            entities = ImmutableList.copyOf(inputPlan.getEntities());
+            entityCount = entities.size();
+            encoding = entities.isEmpty() ? null : stateSpace.getEncoding(entities);
+            costFunction = asG2DCostFunction(inputPlan.getCostFunction());
+
+            startCells = toCells(entities, inputPlan.getInitialCollectiveState(), cols);
+            goalCells = toCells(entities, inputPlan.getTargetCollectiveState(), cols);
+            goalDistances = encoding != null && encoding == inputPlan.getTargetCollectiveState().getEncoding()
+                    ? costFunction.getTargetDistances(inputPlan.getTargetCollectiveState())
+                    : null;
+
+            nodes = new NodeTable(encoding);
+            currentCells = new int[entityCount];
+            neighborCells = new int[entityCount];
+            neighborKey = nodes.newKey();
+            stats = new CollectiveAStarStats();
+            this.gatherStats = gatherStats;
+        }
+
+        private static G2DCostFunction asG2DCostFunction(CostFunction<G2DCollectiveState, Double> costFunction) {
+            if (!(costFunction instanceof G2DCostFunction)) {
+                throw new IllegalArgumentException("Primitive search requires " + G2DCostFunction.class.getSimpleName());
+            }
+            return (G2DCostFunction) costFunction;
+        }
+    }
+
+    /**
+     * Node storage and open set of the search. The cells of a node are kept as their packed identity given by the
+     * {@link G2DStateEncoding} of the entities, and nodes are interned through an open-addressing table keyed by a
+     * 64-bit hash of it; the open set is a binary heap of node ids with decrease-key, ordered by f-score and then
+     * by higher g-score.
+     */
+    private static final class NodeTable {
+
+        private static final int NO_NODE = -1;
+        private static final int CLOSED = -1;
+        private static final int INITIAL_CAPACITY = 1 << 10;
+
+        private final G2DStateEncoding encoding;
+        private final int width;
+        private int size;
+        private long[] keys;
+        private long[] hashes;
+        private double[] gScores;
+        private double[] fScores;
+        private int[] parents;
+        private int[] heapPositions;
+
+        private int[] slots;
+        private int mask;
+
+        private int[] heap;
+        private int heapSize;
+
+        /**
+         * @param encoding encoding of the entities, or null if there are none
+         */
+        private NodeTable(G2DStateEncoding encoding) {
+            this.encoding = encoding;
+            this.width = encoding != null ? encoding.getWords() : 0;
+            keys = new long[INITIAL_CAPACITY * width];
+            hashes = new long[INITIAL_CAPACITY];
+            gScores = new double[INITIAL_CAPACITY];
+            fScores = new double[INITIAL_CAPACITY];
+            parents = new int[INITIAL_CAPACITY];
+            heapPositions = new int[INITIAL_CAPACITY];
+            heap = new int[INITIAL_CAPACITY];
+            slots = new int[INITIAL_CAPACITY * 2];
+            Arrays.fill(slots, NO_NODE);
+            mask = slots.length - 1;
+        }
+
+        private long[] newKey() {
+            return new long[width];
+        }
+
+        private void pack(int[] cells, long[] key) {
+            if (encoding != null) {
+                encoding.encode(cells, key, 0);
+            }
+        }
+
+        private static long hash(long[] key) {
+            long hash = 0x9E3779B97F4A7C15L;
+            for (long word : key) {
+                hash = (hash ^ word) * 0xBF58476D1CE4E5B9L;
+                hash ^= hash >>> 31;
+            }
+            return hash;
+        }
+
+        private int find(long[] key, long hash) {
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                int node = slots[slot];
+                if (node == NO_NODE || matches(node, key, hash)) {
+                    return node;
+                }
+            }
+        }
+
+        private boolean matches(int node, long[] key, long hash) {
+            if (hashes[node] != hash) {
+                return false;
+            }
+            int offset = node * width;
+            for (int i = 0; i < width; i++) {
+                if (keys[offset + i] != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int add(long[] key, long hash) {
+            if (size == hashes.length) {
+                grow();
+            }
+            int node = size++;
+            System.arraycopy(key, 0, keys, node * width, width);
+            hashes[node] = hash;
+            heapPositions[node] = CLOSED;
+            insertIntoSlots(node);
+            return node;
+        }
+
+        private void insertIntoSlots(int node) {
+            int slot = (int) hashes[node] & mask;
+            while (slots[slot] != NO_NODE) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = node;
+        }
+
+        private void grow() {
+            int capacity = hashes.length * 2;
+            keys = Arrays.copyOf(keys, capacity * width);
+            hashes = Arrays.copyOf(hashes, capacity);
+            gScores = Arrays.copyOf(gScores, capacity);
+            fScores = Arrays.copyOf(fScores, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            heapPositions = Arrays.copyOf(heapPositions, capacity);
+            heap = Arrays.copyOf(heap, capacity);
+
+            slots = new int[capacity * 2];
+            Arrays.fill(slots, NO_NODE);
+            mask = slots.length - 1;
+            for (int node = 0; node < size; node++) {
+                insertIntoSlots(node);
+            }
+        }
+
+        private void copyCells(int node, int[] target) {
+            if (encoding != null) {
+                encoding.decode(keys, node * width, target);
+            }
+        }
+
+        private double getGScore(int node) {
+            return gScores[node];
+        }
+
+        private int getParent(int node) {
+            return parents[node];
+        }
+
+        private boolean isClosed(int node) {
+            return heapPositions[node] == CLOSED;
+        }
+
+        /**
+         * Inserts the node into the open set or moves it up if it is already queued.
+         */
+        private void open(int node, int parent, double gScore, double fScore) {
+            parents[node] = parent;
+            gScores[node] = gScore;
+            fScores[node] = fScore;
+            int position = heapPositions[node];
+            if (position == CLOSED) {
+                position = heapSize++;
+            }
+            siftUp(node, position);
+        }
+
+        private boolean isOpenSetEmpty() {
+            return heapSize == 0;
+        }
+
+        private int openSetSize() {
+            return heapSize;
+        }
+
+        private int pollFirst() {
+            int first = heap[0];
+            heapPositions[first] = CLOSED;
+            int last = heap[--heapSize];
+            if (heapSize > 0) {
+                siftDown(last, 0);
+            }
+            return first;
+        }
+
+        private boolean precedes(int node, int other) {
+            double f = fScores[node];
+            double otherF = fScores[other];
+            return f < otherF || f == otherF && gScores[node] > gScores[other];
+        }
+
+        private void siftUp(int node, int position) {
+            while (position > 0) {
+                int parentPosition = (position - 1) >>> 1;
+                int parentNode = heap[parentPosition];
+                if (!precedes(node, parentNode)) {
+                    break;
+                }
+                place(parentNode, position);
+                position = parentPosition;
+            }
+            place(node, position);
+        }
+
+        private void siftDown(int node, int position) {
+            int half = heapSize >>> 1;
+            while (position < half) {
+                int child = 2 * position + 1;
+                int right = child + 1;
+                if (right < heapSize && precedes(heap[right], heap[child])) {
+                    child = right;
+                }
+                if (!precedes(heap[child], node)) {
+                    break;
+                }
+                place(heap[child], position);
+                position = child;
+            }
+            place(node, position);
+        }
+
+        private void place(int node, int position) {
+            heap[position] = node;
+            heapPositions[node] = position;
+        }
+    }
+}
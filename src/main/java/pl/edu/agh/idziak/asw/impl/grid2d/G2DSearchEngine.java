@@ -0,0 +1,70 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import pl.edu.agh.idziak.asw.astar.CollectiveAStar;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarImpl;
+import pl.edu.agh.idziak.asw.astar.DoubleCollectiveAStar;
+import pl.edu.agh.idziak.asw.astar.IndependenceDetectionAStar;
+import pl.edu.agh.idziak.asw.astar.OperatorDecompositionAStar;
+import pl.edu.agh.idziak.asw.astar.ParallelCollectiveAStar;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+
+/**
+ * Collective A* engines available to the grid planners.
+ */
+public enum G2DSearchEngine {
+
+    /**
+     * {@link CollectiveAStarImpl} working on {@link G2DCollectiveState} objects.
+     */
+    GENERIC {
+        @Override public CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> create() {
+            return new CollectiveAStarImpl<>(DoubleHandler.getInstance());
+        }
+    },
+
+    /**
+     * {@link DoubleCollectiveAStar} keeping the costs of {@link G2DCollectiveState} objects as primitive doubles.
+     */
+    DOUBLE {
+        @Override public CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> create() {
+            return new DoubleCollectiveAStar<>();
+        }
+    },
+
+    /**
+     * {@link G2DPrimitiveAStar} working on cell indices kept in primitive arrays.
+     */
+    PRIMITIVE {
+        @Override public CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> create() {
+            return new G2DPrimitiveAStar();
+        }
+    },
+
+    /**
+     * {@link OperatorDecompositionAStar} moving one entity per expansion.
+     */
+    OPERATOR_DECOMPOSITION {
+        @Override public CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> create() {
+            return new OperatorDecompositionAStar<>(DoubleHandler.getInstance());
+        }
+    },
+
+    /**
+     * {@link ParallelCollectiveAStar} distributing states among one search thread per available processor.
+     */
+    PARALLEL {
+        @Override public CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> create() {
+            return new ParallelCollectiveAStar<>(DoubleHandler.getInstance());
+        }
+    };
+
+    public abstract CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> create();
+
+    /**
+     * @return this engine behind an {@link IndependenceDetectionAStar} front end, which plans groups of
+     * interacting entities separately
+     */
+    public CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> createWithIndependenceDetection() {
+        return new IndependenceDetectionAStar<>(create(), new G2DInputPlanDecomposer());
+    }
+}
@@ -0,0 +1,194 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import pl.edu.agh.idziak.asw.model.CollectivePath;
+import pl.edu.agh.idziak.asw.model.ImmutableCollectivePath;
+import pl.edu.agh.idziak.asw.wavefront.SubspacePlan;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plan of a single entity in a {@link G2DNonCollectiveSubspace}, moving it to the neighbouring cell nearest to the
+ * target, like {@link pl.edu.agh.idziak.asw.wavefront.impl.GradientSubspacePlan}. The distances and the next moves
+ * from the cells of the subspace are kept in flat arrays over the bounding box of the subspace, so a move is looked
+ * up without allocation by any number of threads.
+ */
+public class G2DSingleEntitySubspacePlan implements SubspacePlan<G2DCollectiveState> {
+
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final G2DNonCollectiveSubspace subspace;
+    private final G2DStateSpace stateSpace;
+    private final Object entity;
+    private final G2DStateEncoding encoding;
+    private final int minRow;
+    private final int minCol;
+    private final int height;
+    private final int width;
+    private final int[] distances;
+    private final G2DCollectiveState[] nextMoves;
+
+    private G2DSingleEntitySubspacePlan(G2DNonCollectiveSubspace subspace, G2DStateSpace stateSpace) {
+        Map<?, G2DEntityState> targetStates = subspace.getTargetState().getEntityStates();
+        if (targetStates.size() != 1) {
+            throw new IllegalArgumentException("Subspace of a single entity required, got " + targetStates.keySet());
+        }
+        this.subspace = subspace;
+        this.stateSpace = stateSpace;
+        this.entity = targetStates.keySet().iterator().next();
+        this.encoding = stateSpace.getEncoding(ImmutableList.of(entity));
+
+        Set<G2DEntityState> states = subspace.getContainedEntityStates();
+        int minRow = Integer.MAX_VALUE, minCol = Integer.MAX_VALUE, maxRow = -1, maxCol = -1;
+        for (G2DEntityState state : states) {
+            minRow = Math.min(minRow, state.getRow());
+            minCol = Math.min(minCol, state.getCol());
+            maxRow = Math.max(maxRow, state.getRow());
+            maxCol = Math.max(maxCol, state.getCol());
+        }
+        this.minRow = minRow;
+        this.minCol = minCol;
+        this.height = maxRow - minRow + 1;
+        this.width = maxCol - minCol + 1;
+        this.distances = new int[height * width];
+
+        boolean[] contained = new boolean[distances.length];
+        for (G2DEntityState state : states) {
+            contained[indexOf(state.getRow(), state.getCol())] = true;
+        }
+        propagate(contained, targetStates.values().iterator().next(), states.size());
+
+        this.nextMoves = new G2DCollectiveState[distances.length];
+        int cols = stateSpace.getAdjacency().getCols();
+        for (int index = 0; index < nextMoves.length; index++) {
+            if (contained[index]) {
+                nextMoves[index] = findNextMove(cellOf(index, cols), cols);
+            }
+        }
+    }
+
+    /**
+     * Builds the plan with a breadth-first search from the target over the cells of the subspace. Every move of a
+     * single entity has the same cost in {@link G2DCostFunction}, so the number of moves orders the cells like
+     * their costs.
+     */
+    public static G2DSingleEntitySubspacePlan build(G2DNonCollectiveSubspace subspace, G2DStateSpace stateSpace) {
+        return new G2DSingleEntitySubspacePlan(subspace, stateSpace);
+    }
+
+    private void propagate(boolean[] contained, G2DEntityState targetState, int maxQueued) {
+        Arrays.fill(distances, UNREACHED);
+        G2DAdjacency adjacency = stateSpace.getAdjacency();
+        int cols = adjacency.getCols();
+        int[] queue = new int[maxQueued];
+        int head = 0;
+        int tail = 0;
+
+        int target = indexOf(targetState.getRow(), targetState.getCol());
+        distances[target] = 0;
+        queue[tail++] = target;
+
+        while (head < tail) {
+            int index = queue[head++];
+            int cell = cellOf(index, cols);
+            int distance = distances[index] + 1;
+            for (int i = adjacency.firstIndexOf(cell); i < adjacency.endIndexOf(cell); i++) {
+                int neighborCell = adjacency.getNeighborCell(i);
+                int neighbor = indexOfCell(neighborCell, cols);
+                if (neighbor >= 0 && contained[neighbor] && distances[neighbor] == UNREACHED) {
+                    distances[neighbor] = distance;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    @Override
+    public G2DCollectiveState getNextMove(G2DCollectiveState collectiveState) {
+        G2DEntityState entityState = collectiveState.getStateForEntity(entity);
+        int index = indexOf(entityState.getRow(), entityState.getCol());
+        if (index >= 0 && nextMoves[index] != null) {
+            return nextMoves[index];
+        }
+        int cols = stateSpace.getAdjacency().getCols();
+        return findNextMove(entityState.getRow() * cols + entityState.getCol(), cols);
+    }
+
+    private G2DCollectiveState findNextMove(int cell, int cols) {
+        G2DAdjacency adjacency = stateSpace.getAdjacency();
+        int bestCell = -1;
+        int bestDistance = UNREACHED;
+        for (int i = adjacency.firstIndexOf(cell); i < adjacency.endIndexOf(cell); i++) {
+            int neighborCell = adjacency.getNeighborCell(i);
+            if (neighborCell == cell) {
+                continue;
+            }
+            int distance = distanceOfCell(neighborCell, cols);
+            if (distance < bestDistance) {
+                bestCell = neighborCell;
+                bestDistance = distance;
+            }
+        }
+        return bestCell < 0 ? null : G2DCollectiveState.of(encoding, new int[]{bestCell});
+    }
+
+    @Override
+    public CollectivePath<G2DCollectiveState> constructPath(G2DCollectiveState start, G2DCollectiveState goal) {
+        G2DCollectiveState current = start;
+        List<G2DCollectiveState> path = new LinkedList<>();
+        path.add(current);
+        while (!current.equals(goal)) {
+            current = getNextMove(current);
+            if (current == null) {
+                return null;
+            }
+            path.add(current);
+        }
+        return ImmutableCollectivePath.from(path);
+    }
+
+    /**
+     * @return number of moves from the cell to the target within the subspace, or -1 if the target is unreachable
+     */
+    public int getDistance(int row, int col) {
+        int index = indexOf(row, col);
+        return index < 0 || distances[index] == UNREACHED ? -1 : distances[index];
+    }
+
+    @Override
+    public G2DNonCollectiveSubspace getSubspace() {
+        return subspace;
+    }
+
+    @Override
+    public Set<?> getEntities() {
+        return ImmutableSet.of(entity);
+    }
+
+    private int distanceOfCell(int cell, int cols) {
+        int index = indexOfCell(cell, cols);
+        return index < 0 ? UNREACHED : distances[index];
+    }
+
+    private int indexOfCell(int cell, int cols) {
+        return indexOf(cell / cols, cell % cols);
+    }
+
+    private int indexOf(int row, int col) {
+        int localRow = row - minRow;
+        int localCol = col - minCol;
+        if (localRow < 0 || localRow >= height || localCol < 0 || localCol >= width) {
+            return -1;
+        }
+        return localRow * width + localCol;
+    }
+
+    private int cellOf(int index, int cols) {
+        return (minRow + index / width) * cols + minCol + index % width;
+    }
+}
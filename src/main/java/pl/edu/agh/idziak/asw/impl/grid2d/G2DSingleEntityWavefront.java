@@ -0,0 +1,42 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import pl.edu.agh.idziak.asw.model.CostFunction;
+import pl.edu.agh.idziak.asw.wavefront.Subspace;
+import pl.edu.agh.idziak.asw.wavefront.SubspacePlan;
+import pl.edu.agh.idziak.asw.wavefront.Wavefront;
+import pl.edu.agh.idziak.asw.wavefront.impl.DoubleWavefront;
+
+/**
+ * Wavefront building {@link G2DSingleEntitySubspacePlan}s for the single entity zones found by
+ * {@link G2DNonCollectiveDevZonesFinder}, and delegating other subspaces to another wavefront.
+ */
+public class G2DSingleEntityWavefront implements Wavefront<G2DStateSpace, G2DCollectiveState, Double> {
+
+    private final Wavefront<G2DStateSpace, G2DCollectiveState, Double> fallbackWavefront;
+
+    public G2DSingleEntityWavefront() {
+        this(new DoubleWavefront<>());
+    }
+
+    public G2DSingleEntityWavefront(Wavefront<G2DStateSpace, G2DCollectiveState, Double> fallbackWavefront) {
+        this.fallbackWavefront = fallbackWavefront;
+    }
+
+    @Override
+    public SubspacePlan<G2DCollectiveState> buildPlanForSubspace(Subspace<G2DCollectiveState> subspace,
+                                                                 G2DStateSpace stateSpace,
+                                                                 CostFunction<G2DCollectiveState, Double> costFunction) {
+        if (subspace instanceof G2DNonCollectiveSubspace && costFunction instanceof G2DCostFunction
+                && subspace.getTargetState().getEntityStates().size() == 1) {
+            return G2DSingleEntitySubspacePlan.build((G2DNonCollectiveSubspace) subspace, stateSpace);
+        }
+        return fallbackWavefront.buildPlanForSubspace(subspace, stateSpace, costFunction);
+    }
+
+    @Override
+    public SubspacePlan<G2DCollectiveState> buildPlanForEntireSpace(G2DCollectiveState targetState,
+                                                                    G2DStateSpace stateSpace,
+                                                                    CostFunction<G2DCollectiveState, Double> costFunction) {
+        return fallbackWavefront.buildPlanForEntireSpace(targetState, stateSpace, costFunction);
+    }
+}
@@ -0,0 +1,197 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Fixed order of a group of entities on a grid. A state of the group is kept as a row of cell indices
+ * (row * cols + col, one per entity in this order), and can be packed into longs. A coordinate takes as many bits as
+ * needed for the dimension of the grid and the position of an entity never spans two longs, so states of up to
+ * {@link #getEntitiesPerWord()} entities fit into a single long and larger ones into an array of them.
+ * <p>
+ * Two states kept by the same encoding are equal if and only if their cells, or packed identities, are equal.
+ */
+public final class G2DStateEncoding {
+
+    private final int rows;
+    private final int cols;
+    private final int colBits;
+    private final int bitsPerEntity;
+    private final int entitiesPerWord;
+    private final int words;
+    private final List<Object> entities;
+    private final Map<Object, Integer> entityIndices;
+    private final int[] entityHashCodes;
+    private final IntFunction<G2DEntityState> cellStates;
+
+    private G2DStateEncoding(int rows, int cols, List<?> entities, IntFunction<G2DEntityState> cellStates) {
+        Preconditions.checkArgument(rows > 0 && cols > 0, "Positive grid dimensions required");
+        Preconditions.checkArgument(!entities.isEmpty(), "At least one entity required");
+        this.rows = rows;
+        this.cols = cols;
+        this.colBits = bitsFor(cols);
+        this.bitsPerEntity = bitsFor(rows) + colBits;
+        this.entitiesPerWord = Long.SIZE / bitsPerEntity;
+        this.words = (entities.size() + entitiesPerWord - 1) / entitiesPerWord;
+        this.entities = ImmutableList.copyOf(entities);
+        this.entityHashCodes = new int[entities.size()];
+        this.cellStates = cellStates;
+
+        ImmutableMap.Builder<Object, Integer> indices = ImmutableMap.builder();
+        for (int i = 0; i < entities.size(); i++) {
+            indices.put(entities.get(i), i);
+            entityHashCodes[i] = entities.get(i).hashCode();
+        }
+        this.entityIndices = indices.build();
+    }
+
+    /**
+     * @param entities entities in the order in which their positions are kept
+     */
+    public static G2DStateEncoding of(int rows, int cols, List<?> entities) {
+        return new G2DStateEncoding(rows, cols, entities, null);
+    }
+
+    /**
+     * @param cellStates canonical entity states of cells
+     */
+    static G2DStateEncoding of(int rows, int cols, List<?> entities, IntFunction<G2DEntityState> cellStates) {
+        return new G2DStateEncoding(rows, cols, entities, Preconditions.checkNotNull(cellStates));
+    }
+
+    /**
+     * @return cells of all entities, or null if the state holds other entities or positions outside the grid
+     */
+    public int[] cellsOf(Map<?, G2DEntityState> entityStates) {
+        if (entityStates.size() != entities.size()) {
+            return null;
+        }
+        int[] cells = new int[entities.size()];
+        for (Map.Entry<?, G2DEntityState> entry : entityStates.entrySet()) {
+            Integer index = entityIndices.get(entry.getKey());
+            int row = entry.getValue().getRow();
+            int col = entry.getValue().getCol();
+            if (index == null || row < 0 || row >= rows || col < 0 || col >= cols) {
+                return null;
+            }
+            cells[index] = cellOf(row, col);
+        }
+        return cells;
+    }
+
+    /**
+     * @return packed positions of the entities standing on the given cells
+     */
+    public long[] encode(int[] cells) {
+        long[] identity = new long[words];
+        encode(cells, identity, 0);
+        return identity;
+    }
+
+    /**
+     * Packs the positions of the entities standing on the given cells into {@link #getWords()} longs of the target,
+     * starting at the offset.
+     */
+    void encode(int[] cells, long[] target, int offset) {
+        Arrays.fill(target, offset, offset + words, 0L);
+        for (int i = 0; i < cells.length; i++) {
+            long position = ((long) rowOf(cells[i]) << colBits) | colOf(cells[i]);
+            target[offset + i / entitiesPerWord] |= position << (i % entitiesPerWord * bitsPerEntity);
+        }
+    }
+
+    /**
+     * Reverse of {@link #encode(int[], long[], int)}, writing the cells of all entities into the target.
+     */
+    void decode(long[] identity, int offset, int[] target) {
+        long positionMask = (1L << bitsPerEntity) - 1;
+        long colMask = (1L << colBits) - 1;
+        for (int i = 0; i < target.length; i++) {
+            long position = identity[offset + i / entitiesPerWord] >>> (i % entitiesPerWord * bitsPerEntity)
+                    & positionMask;
+            target[i] = cellOf((int) (position >>> colBits), (int) (position & colMask));
+        }
+    }
+
+    /**
+     * @return hash code of the map of entity states corresponding to the given cells
+     */
+    int hashCodeOf(int[] cells) {
+        int hashCode = 0;
+        for (int i = 0; i < cells.length; i++) {
+            hashCode += entityHashCodes[i] ^ entityStateOf(cells[i]).hashCode();
+        }
+        return hashCode;
+    }
+
+    /**
+     * @return canonical state of the cell, if the encoding belongs to a state space, or a new one otherwise
+     */
+    public G2DEntityState entityStateOf(int cell) {
+        return cellStates != null ? cellStates.apply(cell) : G2DEntityState.of(rowOf(cell), colOf(cell));
+    }
+
+    public int indexOf(Object entity) {
+        Integer index = entityIndices.get(entity);
+        return index != null ? index : -1;
+    }
+
+    public int cellOf(int row, int col) {
+        return row * cols + col;
+    }
+
+    public int rowOf(int cell) {
+        return cell / cols;
+    }
+
+    public int colOf(int cell) {
+        return cell % cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public List<Object> getEntities() {
+        return entities;
+    }
+
+    public int countEntities() {
+        return entities.size();
+    }
+
+    public int getBitsPerEntity() {
+        return bitsPerEntity;
+    }
+
+    public int getEntitiesPerWord() {
+        return entitiesPerWord;
+    }
+
+    /**
+     * @return number of longs in a packed identity
+     */
+    public int getWords() {
+        return words;
+    }
+
+    private static int bitsFor(int size) {
+        return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(size - 1));
+    }
+
+    @Override
+    public String toString() {
+        return "G2DStateEncoding{" + rows + "x" + cols + ", " + entities.size() + " entities, "
+                + bitsPerEntity + " bits each}";
+    }
+}
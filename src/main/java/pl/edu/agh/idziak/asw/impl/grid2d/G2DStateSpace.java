@@ -3,37 +3,123 @@ package pl.edu.agh.idziak.asw.impl.grid2d;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.edu.agh.idziak.asw.common.CombinationsGenerator;
 import pl.edu.agh.idziak.asw.common.Dictionary;
-import pl.edu.agh.idziak.asw.common.Utils;
-import pl.edu.agh.idziak.asw.model.StateSpace;
+import pl.edu.agh.idziak.asw.model.DecomposableStateSpace;
+import pl.edu.agh.idziak.asw.model.NeighborVisitor;
+import pl.edu.agh.idziak.asw.wavefront.Subspace;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
 
 /**
  * Created by Tomasz on 29.06.2016.
+ * <p>
+ * A state space may be shared by planners running in many threads; the caches it fills lazily are published
+ * atomically, so every thread gets the same canonical states.
  */
-public class G2DStateSpace implements StateSpace<G2DCollectiveState> {
+public class G2DStateSpace implements DecomposableStateSpace<G2DCollectiveState> {
 
     private static final Logger LOG = LoggerFactory.getLogger(G2DStateSpace.class);
 
-    private final int[][] space;
+    /**
+     * Largest number of cells of a grid whose moves are compiled and whose entity states are cached.
+     */
+    public static final int MAX_COMPILED_CELLS = 1 << 22;
+
+    private final G2DGrid grid;
     private final Dictionary<Integer, G2DLightCollectiveState> stateSpace;
+    private final ConcurrentMap<List<?>, G2DStateEncoding> encodings = new ConcurrentHashMap<>();
+    private final G2DEntityState[] entityStates;
+    private final G2DAdjacency adjacency;
+    private final AtomicReferenceArray<Set<G2DEntityState>> neighborStates;
 
     public G2DStateSpace(int[][] space) {
-        this.space = Preconditions.checkNotNull(space);
+        this(new G2DArrayGrid(Preconditions.checkNotNull(space)));
+    }
+
+    /**
+     * Moves of grids up to {@link #MAX_COMPILED_CELLS} cells are compiled into a {@link G2DCompiledAdjacency}, and
+     * the canonical entity state of every cell is built here, so that looking one up is a plain array read. Larger
+     * grids are read directly, so that they cost no heap beyond their storage.
+     */
+    public G2DStateSpace(G2DGrid grid) {
+        this.grid = Preconditions.checkNotNull(grid);
         stateSpace = new Dictionary<>();
+        if (grid.countCells() <= MAX_COMPILED_CELLS) {
+            entityStates = new G2DEntityState[grid.countCells()];
+            for (int cell = 0; cell < entityStates.length; cell++) {
+                entityStates[cell] = new G2DEntityState(cell / grid.countCols(), cell % grid.countCols());
+            }
+            adjacency = new G2DCompiledAdjacency(grid);
+            neighborStates = new AtomicReferenceArray<>(grid.countCells());
+        } else {
+            entityStates = null;
+            adjacency = new G2DGridAdjacency(grid);
+            neighborStates = null;
+        }
+    }
+
+    /**
+     * @return encoding shared by all states of this space holding the given entities in the given order
+     */
+    public G2DStateEncoding getEncoding(List<?> entities) {
+        return encodings.computeIfAbsent(ImmutableList.copyOf(entities),
+                key -> G2DStateEncoding.of(countRows(), countCols(), key, this::getEntityStateOfCell));
+    }
+
+    /**
+     * @return equal state kept by the encoding of this space, or the state itself if it already is encoded or
+     * does not fit into the grid
+     */
+    public G2DCollectiveState encode(G2DCollectiveState collectiveState) {
+        if (collectiveState.hasPackedIdentity()) {
+            return collectiveState;
+        }
+        return encode(collectiveState, encodingOf(collectiveState));
+    }
+
+    /**
+     * @param entities order of the entities in the encoded state
+     * @return equal state kept by the encoding of this space for the given order of entities, or the state itself
+     * if it holds other entities or does not fit into the grid
+     */
+    public G2DCollectiveState encode(G2DCollectiveState collectiveState, List<?> entities) {
+        if (entities.isEmpty()) {
+            return collectiveState;
+        }
+        return encode(collectiveState, getEncoding(entities));
+    }
+
+    private static G2DCollectiveState encode(G2DCollectiveState collectiveState, G2DStateEncoding encoding) {
+        if (encoding == null || collectiveState.getEncoding() == encoding) {
+            return collectiveState;
+        }
+        G2DCollectiveState encoded = G2DCollectiveState.from(collectiveState.getEntityStates(), encoding);
+        return encoded.hasPackedIdentity() ? encoded : collectiveState;
+    }
+
+    private G2DStateEncoding encodingOf(G2DCollectiveState collectiveState) {
+        G2DStateEncoding encoding = collectiveState.getEncoding();
+        if (encoding != null && encoding.getRows() == countRows() && encoding.getCols() == countCols()) {
+            return encoding;
+        }
+        Set<?> entities = collectiveState.getEntityStates().keySet();
+        return entities.isEmpty() ? null : getEncoding(ImmutableList.copyOf(entities));
     }
 
     @Deprecated
     private void initStateSpace(int numberOfEntities) {
-        List<Integer> positionsX = IntStream.range(0, space.length).boxed().collect(toList());
-        List<Integer> positionsY = IntStream.range(0, space[0].length).boxed().collect(toList());
+        List<Integer> positionsX = IntStream.range(0, countRows()).boxed().collect(toList());
+        List<Integer> positionsY = IntStream.range(0, countCols()).boxed().collect(toList());
         List<List<Integer>> combinationsSeed = new ArrayList<>();
         for (int i = 0; i < numberOfEntities; i++) {
             combinationsSeed.add(positionsX);
@@ -48,130 +134,225 @@ public class G2DStateSpace implements StateSpace<G2DCollectiveState> {
 
     @Override
     public Set<G2DCollectiveState> getNeighborStatesOf(G2DCollectiveState collectiveState) {
-        Map<?, G2DEntityState> entityStates = collectiveState.getEntityStates();
-        HashMap<G2DEntityState, Object> stateToEntityMap = buildReversedMap(entityStates);
+        Set<G2DCollectiveState> neighborStates = new HashSet<>();
+        forEachNeighborStateOf(collectiveState, neighborStates::add);
 
-        Set<? extends Map.Entry<?, G2DEntityState>> sourceEntityStatesSet = entityStates.entrySet();
+        LOG.trace("State {} has {} neighbors: {}", collectiveState, neighborStates.size(), neighborStates);
+        return neighborStates;
+    }
 
-        List<List<G2DEntityState>> choiceArray = buildChoiceArray(sourceEntityStatesSet);
+    /**
+     * Enumerates the moves of the entities one entity at a time with {@link CombinationsGenerator#forEachCombination}.
+     * A move colliding with the moves already chosen for the preceding entities is rejected before any state is
+     * built, together with all its completions.
+     */
+    @Override
+    public void forEachNeighborStateOf(G2DCollectiveState collectiveState, NeighborVisitor<G2DCollectiveState> visitor) {
+        forEachNeighborStateWithin(collectiveState, null, visitor);
+    }
 
-        List<List<G2DEntityState>> combinations = CombinationsGenerator.generateCombinations(
-                choiceArray, G2DStateSpace::areAllEntityStatesUnique);
+    /**
+     * For a {@link G2DSubspace} a move of an entity to a state outside the subspace is rejected as soon as it is
+     * chosen, like a colliding move, so the enumeration never leaves the subspace for long.
+     */
+    @Override
+    public void forEachNeighborStateOf(G2DCollectiveState collectiveState, Subspace<G2DCollectiveState> subspace,
+                                       NeighborVisitor<G2DCollectiveState> visitor) {
+        if (subspace instanceof G2DSubspace) {
+            forEachNeighborStateWithin(collectiveState, (G2DSubspace) subspace, visitor);
+        } else {
+            DecomposableStateSpace.super.forEachNeighborStateOf(collectiveState, subspace, visitor);
+        }
+    }
 
-        Set<G2DCollectiveState> neighborStates = new HashSet<>();
+    /**
+     * @param subspace subspace to stay in, or null to visit all neighbors
+     */
+    private void forEachNeighborStateWithin(G2DCollectiveState collectiveState, G2DSubspace subspace,
+                                            NeighborVisitor<G2DCollectiveState> visitor) {
+        G2DStateEncoding encoding = encodingOf(collectiveState);
+        if (encoding == null) {
+            return;
+        }
+        int[] sourceCells = cellsOf(collectiveState, encoding);
+        int[] targetCells = new int[sourceCells.length];
+        int[] firstMoves = new int[sourceCells.length];
+        int[] moveCounts = new int[sourceCells.length];
+        for (int i = 0; i < sourceCells.length; i++) {
+            firstMoves[i] = adjacency.firstIndexOf(sourceCells[i]);
+            moveCounts[i] = adjacency.endIndexOf(sourceCells[i]) - firstMoves[i];
+        }
 
-        for (List<G2DEntityState> combination : combinations) {
-            ImmutableMap.Builder<Object, G2DEntityState> neighborStateBuilder = ImmutableMap.builder();
-            HashMap<Object, Object> sourceToTargetEntityExchange = new HashMap<>(combination.size());
-
-            boolean entitiesDidNotCollide =
-                    Utils.interruptableForEach(sourceEntityStatesSet, combination, (entry, targetEntityState) -> {
-                        Object sourceEntity = stateToEntityMap.get(targetEntityState);
-                        if (sourceEntity != null) {
-                            Object targetEntity = sourceToTargetEntityExchange.get(entry.getKey());
-                            if (Objects.equals(targetEntity, sourceEntity)) {
-                                return false;
-                            }
-                            sourceToTargetEntityExchange.put(sourceEntity, entry.getKey());
+        CombinationsGenerator.forEachCombination(moveCounts,
+                (moves, index) -> {
+                    targetCells[index] = adjacency.getNeighborCell(firstMoves[index] + moves[index]);
+                    return !collidesWithPrecedingEntities(sourceCells, targetCells, index, targetCells[index])
+                            && (subspace == null
+                            || subspace.containsEntityState(encoding.rowOf(targetCells[index]),
+                            encoding.colOf(targetCells[index])));
+                },
+                moves -> {
+                    if (!Arrays.equals(sourceCells, targetCells)) {
+                        G2DCollectiveState neighbor = G2DCollectiveState.of(encoding, targetCells.clone());
+                        if (subspace == null || subspace.isProductOfEntityStates() || subspace.contains(neighbor)) {
+                            visitor.visit(neighbor);
                         }
-                        neighborStateBuilder.put(entry.getKey(), targetEntityState);
-                        return true;
-                    });
+                    }
+                });
+    }
 
-            if (entitiesDidNotCollide) {
-                G2DCollectiveState newNeighborState = G2DCollectiveState.from(neighborStateBuilder.build());
-                neighborStates.add(newNeighborState);
+    /**
+     * Collision check shared by all searches over the cells of a grid: the move of the entity at the given index
+     * to the target cell collides with the moves chosen for the preceding entities if it ends in the same cell as
+     * one of them or swaps cells with one of them.
+     */
+    static boolean collidesWithPrecedingEntities(int[] sourceCells, int[] targetCells, int index, int targetCell) {
+        for (int j = 0; j < index; j++) {
+            if (targetCells[j] == targetCell) {
+                return true;
+            }
+            if (sourceCells[j] == targetCell && targetCells[j] == sourceCells[index]) {
+                return true;
             }
         }
-        neighborStates.remove(collectiveState);
-
-        LOG.trace("State {} has {} neighbors: {}", collectiveState, neighborStates.size(), neighborStates);
-        return neighborStates;
+        return false;
     }
 
-    private static HashMap<G2DEntityState, Object> buildReversedMap(Map<?, G2DEntityState> entityStates) {
-        HashMap<G2DEntityState, Object> reversedMap = new HashMap<>(entityStates.size());
-        for (Map.Entry<?, G2DEntityState> entry : entityStates.entrySet()) {
-            reversedMap.put(entry.getValue(), entry.getKey());
+    private static int[] cellsOf(G2DCollectiveState collectiveState, G2DStateEncoding encoding) {
+        if (collectiveState.getEncoding() == encoding) {
+            int[] cells = new int[encoding.countEntities()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = collectiveState.getCell(i);
+            }
+            return cells;
+        }
+        int[] cells = encoding.cellsOf(collectiveState.getEntityStates());
+        if (cells == null) {
+            throw new IllegalArgumentException("State " + collectiveState + " does not fit into the grid");
         }
-        return reversedMap;
+        return cells;
     }
 
-
-    private List<List<G2DEntityState>> buildChoiceArray(Set<? extends Map.Entry<?, G2DEntityState>> entries) {
-        List<List<G2DEntityState>> choiceArray = new LinkedList<>();
-        for (Map.Entry<?, G2DEntityState> state : entries) {
-            List<G2DEntityState> neighborStates = ImmutableList.copyOf(getNeighborStatesOf(state.getValue()));
-            choiceArray.add(neighborStates);
+    @Override
+    public Set<G2DCollectiveState> getEntityMovesOf(G2DCollectiveState partialState, G2DCollectiveState baseState,
+                                                   Object entity, List<?> assignedEntities) {
+        int index = assignedEntities.size();
+        int[] sourceCells = new int[index + 1];
+        int[] targetCells = new int[index + 1];
+        for (int j = 0; j < index; j++) {
+            Object assignedEntity = assignedEntities.get(j);
+            sourceCells[j] = cellOf(baseState.getStateForEntity(assignedEntity));
+            targetCells[j] = cellOf(partialState.getStateForEntity(assignedEntity));
         }
-        return choiceArray;
+        int sourceCell = cellOf(partialState.getStateForEntity(entity));
+        sourceCells[index] = sourceCell;
+
+        G2DStateEncoding encoding = encodingOf(partialState);
+        Set<G2DCollectiveState> moves = new HashSet<>();
+        for (int i = adjacency.firstIndexOf(sourceCell); i < adjacency.endIndexOf(sourceCell); i++) {
+            int targetCell = adjacency.getNeighborCell(i);
+            if (!collidesWithPrecedingEntities(sourceCells, targetCells, index, targetCell)) {
+                moves.add(withEntityState(encoding, partialState, entity, getEntityStateOfCell(targetCell)));
+            }
+        }
+        return moves;
     }
 
-    private static boolean areAllEntityStatesUnique(List<G2DEntityState> entityStates) {
-        Set<G2DEntityState> set = new HashSet<>();
-        for (G2DEntityState entityState : entityStates) {
-            if (set.contains(entityState))
-                return false;
-            set.add(entityState);
+    private static G2DCollectiveState withEntityState(G2DStateEncoding encoding, G2DCollectiveState collectiveState,
+                                                      Object entity, G2DEntityState entityState) {
+        ImmutableMap.Builder<Object, G2DEntityState> builder = ImmutableMap.builder();
+        for (Map.Entry<?, G2DEntityState> entry : collectiveState.getEntityStates().entrySet()) {
+            builder.put(entry.getKey(), entry.getKey().equals(entity) ? entityState : entry.getValue());
         }
-        return true;
+        return G2DCollectiveState.from(builder.build(), encoding);
     }
 
+    /**
+     * @return canonical states of the cells reachable from the given state in one step, built once per cell
+     */
     public Set<G2DEntityState> getNeighborStatesOf(G2DEntityState entityState) {
-        List<Integer> positions = entityState.get();
-        int row = positions.get(0);
-        int col = positions.get(1);
+        int cell = cellOf(entityState);
+        Set<G2DEntityState> states = neighborStates != null ? neighborStates.get(cell) : null;
+        if (states == null) {
+            ImmutableSet.Builder<G2DEntityState> builder = ImmutableSet.builder();
+            for (int i = adjacency.firstIndexOf(cell); i < adjacency.endIndexOf(cell); i++) {
+                builder.add(getEntityStateOfCell(adjacency.getNeighborCell(i)));
+            }
+            states = builder.build();
+            if (neighborStates != null && !neighborStates.compareAndSet(cell, null, states)) {
+                states = neighborStates.get(cell);
+            }
+        }
+        return states;
+    }
 
-        Set<G2DEntityState> states = new HashSet<>();
+    /**
+     * @return moves between the cells of the grid, shared by all users of this space
+     */
+    public G2DAdjacency getAdjacency() {
+        return adjacency;
+    }
 
-        addState(row, col, states);
-        if (row > 0) {
-            addState(row - 1, col, states);
-        }
-        if (row < space.length - 1) {
-            addState(row + 1, col, states);
-        }
-        if (col > 0) {
-            addState(row, col - 1, states);
-        }
-        if (col < space[0].length - 1) {
-            addState(row, col + 1, states);
+    /**
+     * @return canonical state of the given cell, shared by all collective states of this space
+     */
+    public G2DEntityState getEntityState(int row, int col) {
+        return getEntityStateOfCell(cellOf(row, col));
+    }
+
+    private G2DEntityState getEntityStateOfCell(int cell) {
+        if (entityStates == null) {
+            return new G2DEntityState(cell / countCols(), cell % countCols());
         }
+        return entityStates[cell];
+    }
 
-        return states;
+    private int cellOf(G2DEntityState entityState) {
+        return cellOf(entityState.getRow(), entityState.getCol());
     }
 
-    private void addState(int destRow, int destCol, Set<G2DEntityState> states) {
-        int weight = space[destRow][destCol];
-        if (weight <= 0) {
-            states.add(new G2DEntityState(destRow, destCol));
-        }
+    private int cellOf(int row, int col) {
+        Preconditions.checkElementIndex(row, countRows(), "row");
+        Preconditions.checkElementIndex(col, countCols(), "col");
+        return row * countCols() + col;
     }
 
+    public G2DGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return weights of the cells; grids not backed by an array are copied into a new one on every call
+     */
     public int[][] getGridArray() {
-        return space;
+        return grid.toArray();
     }
 
     @Override
     public String toString() {
+        if (grid.countCells() > MAX_COMPILED_CELLS) {
+            return "G2DStateSpace{" + countRows() + "x" + countCols() + "}";
+        }
+        int[][] array = grid instanceof G2DArrayGrid ? grid.toArray() : null;
         StringBuilder sb = new StringBuilder();
-        for (int[] row : space) {
-            sb.append(Arrays.toString(row))
-              .append("\n");
+        for (int row = 0; row < countRows(); row++) {
+            sb.append('[');
+            for (int col = 0; col < countCols(); col++) {
+                if (col > 0) {
+                    sb.append(", ");
+                }
+                sb.append(array != null ? array[row][col] : grid.isFree(row, col) ? 0 : 1);
+            }
+            sb.append("]\n");
         }
         return sb.toString();
     }
 
     public int countRows() {
-        return space.length;
+        return grid.countRows();
     }
 
     public int countCols() {
-        return space[0].length;
-    }
-
-    private static abstract class Visitor {
-
-        public abstract void visit(G2DCollectiveState collectiveState);
+        return grid.countCols();
     }
 }
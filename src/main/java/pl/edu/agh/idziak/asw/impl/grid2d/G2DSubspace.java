@@ -14,4 +14,24 @@ public interface G2DSubspace extends Subspace<G2DCollectiveState> {
     @Override G2DCollectiveState getTargetState();
 
     Set<G2DEntityState> getContainedEntityStates();
+
+    /**
+     * @return false if no state of the subspace places any entity in the given cell
+     */
+    boolean containsEntityState(int row, int col);
+
+    /**
+     * @return false if no state of the subspace places any entity in the given state
+     */
+    default boolean containsEntityState(G2DEntityState entityState) {
+        return containsEntityState(entityState.getRow(), entityState.getCol());
+    }
+
+    /**
+     * @return true if the subspace holds every collective state whose entity states are all contained, so that
+     * checking the entity states is enough
+     */
+    default boolean isProductOfEntityStates() {
+        return false;
+    }
 }
@@ -1,7 +1,7 @@
 package pl.edu.agh.idziak.asw.impl.grid2d;
 
-import pl.edu.agh.idziak.asw.common.DoubleHandler;
 import pl.edu.agh.idziak.asw.impl.BaseWavefrontPlanner;
+import pl.edu.agh.idziak.asw.wavefront.impl.DoubleWavefront;
 
 /**
  * Created by Tomasz on 22.02.2017.
@@ -9,6 +9,6 @@ import pl.edu.agh.idziak.asw.impl.BaseWavefrontPlanner;
 public class G2DWavefrontPlanner extends BaseWavefrontPlanner<G2DInputPlan, G2DStateSpace, G2DCollectiveState, Double> {
 
     public G2DWavefrontPlanner() {
-        super(DoubleHandler.getInstance());
+        super(new DoubleWavefront<>());
     }
 }
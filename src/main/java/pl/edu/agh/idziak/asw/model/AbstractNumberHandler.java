@@ -13,4 +13,9 @@ public interface AbstractNumberHandler<D extends Comparable<D>> {
     D getZero();
 
     D getOne();
+
+    /**
+     * Scales a value, as needed by searches inflating their heuristic.
+     */
+    D multiply(D value, double factor);
 }
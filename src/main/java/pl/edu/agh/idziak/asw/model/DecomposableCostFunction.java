@@ -0,0 +1,9 @@
+package pl.edu.agh.idziak.asw.model;
+
+/**
+ * Cost function whose collective cost is a sum of per-entity costs.
+ */
+public interface DecomposableCostFunction<CS extends CollectiveState<?, ?>, D> extends CostFunction<CS, D> {
+
+    D getEntityHeuristicCost(Object entity, CS start, CS end);
+}
@@ -0,0 +1,21 @@
+package pl.edu.agh.idziak.asw.model;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * State space which can generate the successors of a collective state one entity at a time
+ * (operator decomposition). A step of the collective search is split into single-entity moves;
+ * the states in between are intermediate states in which only some entities have been moved.
+ */
+public interface DecomposableStateSpace<CS extends CollectiveState<?, ?>> extends StateSpace<CS> {
+
+    /**
+     * @param partialState     state in which {@code assignedEntities} have already been moved
+     * @param baseState        state from which the current step started
+     * @param entity           entity to be moved, still at its position from {@code baseState}
+     * @param assignedEntities entities already moved in the current step
+     * @return states derived from {@code partialState} by every legal move of {@code entity}, including waiting
+     */
+    Set<CS> getEntityMovesOf(CS partialState, CS baseState, Object entity, List<?> assignedEntities);
+}
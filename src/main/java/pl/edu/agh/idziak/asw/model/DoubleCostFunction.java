@@ -0,0 +1,36 @@
+package pl.edu.agh.idziak.asw.model;
+
+/**
+ * Cost function with double costs which can be read without boxing, used by the search engines specialised for
+ * double costs.
+ */
+public interface DoubleCostFunction<CS extends CollectiveState<?, ?>> extends CostFunction<CS, Double> {
+
+    double getHeuristicCostAsDouble(CS start, CS end);
+
+    /**
+     * @param stateCost heuristic cost from the state to the goal
+     * @return heuristic cost from the neighbour to the goal
+     */
+    default double getHeuristicCostOfNeighborAsDouble(CS state, double stateCost, CS neighbor, CS goal) {
+        return getHeuristicCostAsDouble(neighbor, goal);
+    }
+
+    /**
+     * @return the given function if it already is a double cost function, otherwise a view unboxing its costs
+     */
+    static <CS extends CollectiveState<?, ?>> DoubleCostFunction<CS> of(CostFunction<CS, Double> costFunction) {
+        if (costFunction instanceof DoubleCostFunction) {
+            return (DoubleCostFunction<CS>) costFunction;
+        }
+        return new DoubleCostFunction<CS>() {
+            @Override public double getHeuristicCostAsDouble(CS start, CS end) {
+                return costFunction.getHeuristicCost(start, end);
+            }
+
+            @Override public Double getHeuristicCost(CS start, CS end) {
+                return costFunction.getHeuristicCost(start, end);
+            }
+        };
+    }
+}
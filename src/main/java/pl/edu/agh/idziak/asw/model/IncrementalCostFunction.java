@@ -0,0 +1,14 @@
+package pl.edu.agh.idziak.asw.model;
+
+/**
+ * Cost function which derives the heuristic cost of a neighbour of a state from the cost of the state itself,
+ * looking only at the entities which moved.
+ */
+public interface IncrementalCostFunction<CS extends CollectiveState<?, ?>, D> extends CostFunction<CS, D> {
+
+    /**
+     * @param stateCost heuristic cost from the state to the goal
+     * @return heuristic cost from the neighbour to the goal
+     */
+    D getHeuristicCostOfNeighbor(CS state, D stateCost, CS neighbor, CS goal);
+}
@@ -0,0 +1,14 @@
+package pl.edu.agh.idziak.asw.model;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits an input plan into plans for groups of entities and joins collective states of disjoint groups back.
+ */
+public interface InputPlanDecomposer<SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>> {
+
+    InputPlan<SS, CS, D> restrictTo(InputPlan<SS, CS, D> inputPlan, Set<?> entities);
+
+    CS combine(List<CS> collectiveStates);
+}
@@ -0,0 +1,10 @@
+package pl.edu.agh.idziak.asw.model;
+
+/**
+ * Receives neighbor states one at a time from {@link StateSpace#forEachNeighborStateOf}.
+ */
+@FunctionalInterface
+public interface NeighborVisitor<CS extends CollectiveState<?, ?>> {
+
+    void visit(CS neighborState);
+}
@@ -1,5 +1,6 @@
 package pl.edu.agh.idziak.asw.model;
 
+import pl.edu.agh.idziak.asw.wavefront.Subspace;
 
 import java.util.Set;
 
@@ -9,4 +10,26 @@ import java.util.Set;
 public interface StateSpace<CS extends CollectiveState<?, ?>> {
 
     Set<CS> getNeighborStatesOf(CS globalState);
+
+    /**
+     * Passes the neighbor states to the visitor without collecting them first. Implementations should override it
+     * when they can generate neighbors lazily; the default one visits the set returned by {@link #getNeighborStatesOf}.
+     */
+    default void forEachNeighborStateOf(CS globalState, NeighborVisitor<CS> visitor) {
+        for (CS neighborState : getNeighborStatesOf(globalState)) {
+            visitor.visit(neighborState);
+        }
+    }
+
+    /**
+     * Visits only the neighbor states lying in the given subspace. Implementations should override it when they can
+     * skip the moves leaving the subspace before building the states; the default one filters all neighbors.
+     */
+    default void forEachNeighborStateOf(CS globalState, Subspace<CS> subspace, NeighborVisitor<CS> visitor) {
+        forEachNeighborStateOf(globalState, neighborState -> {
+            if (subspace.contains(neighborState)) {
+                visitor.visit(neighborState);
+            }
+        });
+    }
 }
@@ -0,0 +1,55 @@
+package pl.edu.agh.idziak.asw.wavefront.impl;
+
+import pl.edu.agh.idziak.asw.common.ObjectDoubleHashMap;
+import pl.edu.agh.idziak.asw.model.CollectiveState;
+import pl.edu.agh.idziak.asw.model.CostFunction;
+import pl.edu.agh.idziak.asw.model.DoubleCostFunction;
+import pl.edu.agh.idziak.asw.model.StateSpace;
+import pl.edu.agh.idziak.asw.wavefront.Subspace;
+import pl.edu.agh.idziak.asw.wavefront.SubspacePlan;
+import pl.edu.agh.idziak.asw.wavefront.Wavefront;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * {@link WavefrontImpl} specialised for double costs, keeping the distances from the target as primitive values.
+ */
+public class DoubleWavefront<SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>>
+        implements Wavefront<SS, CS, Double> {
+
+    @Override
+    public SubspacePlan<CS> buildPlanForSubspace(Subspace<CS> subspace, SS stateSpace,
+                                                 CostFunction<CS, Double> costFunction) {
+        DoubleCostFunction<CS> doubleCostFunction = DoubleCostFunction.of(costFunction);
+        CS targetState = subspace.getTargetState();
+
+        Queue<CS> queue = new ArrayDeque<>();
+        ObjectDoubleHashMap<CS> distanceFromTarget = new ObjectDoubleHashMap<>();
+
+        queue.add(targetState);
+        distanceFromTarget.put(targetState, 0);
+
+        while (!queue.isEmpty()) {
+            CS current = queue.remove();
+
+            double distCurrentToTarget = distanceFromTarget.get(current, Double.NaN);
+
+            stateSpace.forEachNeighborStateOf(current, subspace, neighbor -> {
+                if (!distanceFromTarget.containsKey(neighbor)) {
+                    double distNeighborToCurrent = doubleCostFunction.getHeuristicCostAsDouble(neighbor, current);
+                    distanceFromTarget.put(neighbor, distCurrentToTarget + distNeighborToCurrent);
+                    queue.add(neighbor);
+                }
+            });
+        }
+        return GradientSubspacePlan.from(subspace, distanceFromTarget, stateSpace);
+    }
+
+    @Override
+    public SubspacePlan<CS> buildPlanForEntireSpace(CS targetState, SS stateSpace,
+                                                    CostFunction<CS, Double> costFunction) {
+        return buildPlanForSubspace(new WavefrontImpl.SubspaceEqualToStateSpace<>(targetState), stateSpace,
+                costFunction);
+    }
+}
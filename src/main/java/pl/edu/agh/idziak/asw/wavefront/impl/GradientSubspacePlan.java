@@ -2,36 +2,63 @@ package pl.edu.agh.idziak.asw.wavefront.impl;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import pl.edu.agh.idziak.asw.common.ObjectDoubleHashMap;
 import pl.edu.agh.idziak.asw.model.*;
 import pl.edu.agh.idziak.asw.wavefront.Subspace;
 import pl.edu.agh.idziak.asw.wavefront.SubspacePlan;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Created by Tomasz on 20.02.2017.
+ * <p>
+ * The move descending the gradient is looked up once for every state of the subspace when the plan is built, and
+ * kept in an immutable policy table, so that controllers may ask for moves from many threads at no cost. Moves
+ * from states outside the subspace are still computed on every call.
  */
 public class GradientSubspacePlan<SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>>
         implements SubspacePlan<CS> {
 
     private final Set<?> entities;
     private final Subspace<CS> subspace;
-    private final Map<CS, D> gradientMap;
+    private final Comparator<CS> gradient;
     private final SS stateSpace;
+    private final Map<CS, CS> policy;
 
-    private GradientSubspacePlan(Subspace<CS> subspace, Map<CS, D> distancesMap, SS stateSpace) {
+    /**
+     * @param forEachState passes every state of the subspace reached by the wavefront to the given action
+     */
+    private GradientSubspacePlan(Subspace<CS> subspace, Comparator<CS> gradient, Consumer<Consumer<CS>> forEachState,
+                                 SS stateSpace) {
         this.subspace = subspace;
-        this.gradientMap = ImmutableMap.copyOf(distancesMap);
+        this.gradient = gradient;
         this.stateSpace = stateSpace;
         this.entities = ImmutableSet.of(getSubspace().getTargetState().getEntityStates().keySet());
+
+        ImmutableMap.Builder<CS, CS> policy = ImmutableMap.builder();
+        forEachState.accept(state -> {
+            CS nextMove = findNextMove(state);
+            if (nextMove != null) {
+                policy.put(state, nextMove);
+            }
+        });
+        this.policy = policy.build();
     }
 
     @Override
     public CS getNextMove(CS collectiveState) {
-        return stateSpace.getNeighborStatesOf(collectiveState)
-                         .stream()
-                         .min(Comparator.comparing(o -> gradientMap.get(o)))
-                         .orElse(null);
+        CS nextMove = policy.get(collectiveState);
+        return nextMove != null ? nextMove : findNextMove(collectiveState);
+    }
+
+    /**
+     * @return neighbour within the subspace nearest to the target, the first one found among equally near ones
+     */
+    private CS findNextMove(CS collectiveState) {
+        NextMoveFinder<CS> finder = new NextMoveFinder<>(gradient);
+        stateSpace.forEachNeighborStateOf(collectiveState, subspace, finder);
+        return finder.nextMove;
     }
 
     @Override public CollectivePath<CS> constructPath(CS start, CS goal) {
@@ -56,8 +83,42 @@ public class GradientSubspacePlan<SS extends StateSpace<CS>, CS extends Collecti
         return entities;
     }
 
+    /**
+     * States missing from the map are treated as unreachable.
+     */
     public static <SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>, D extends Comparable<D>>
     GradientSubspacePlan<SS, CS, D> from(Subspace<CS> subspace, Map<CS, D> distancesMap, SS stateSpace) {
-        return new GradientSubspacePlan<>(subspace, distancesMap, stateSpace);
+        Map<CS, D> gradientMap = ImmutableMap.copyOf(distancesMap);
+        return new GradientSubspacePlan<>(subspace,
+                Comparator.comparing(gradientMap::get, Comparator.nullsLast(Comparator.naturalOrder())),
+                gradientMap.keySet()::forEach, stateSpace);
+    }
+
+    /**
+     * Plan descending primitive distances to the target. The map is not copied and must not be modified afterwards;
+     * states missing from it are treated as unreachable.
+     */
+    public static <SS extends StateSpace<CS>, CS extends CollectiveState<?, ?>>
+    GradientSubspacePlan<SS, CS, Double> from(Subspace<CS> subspace, ObjectDoubleHashMap<CS> distancesMap,
+                                              SS stateSpace) {
+        return new GradientSubspacePlan<>(subspace,
+                Comparator.comparingDouble(state -> distancesMap.get(state, Double.POSITIVE_INFINITY)),
+                distancesMap::forEachKey, stateSpace);
+    }
+
+    private static final class NextMoveFinder<CS extends CollectiveState<?, ?>> implements NeighborVisitor<CS> {
+
+        private final Comparator<CS> gradient;
+        private CS nextMove;
+
+        private NextMoveFinder(Comparator<CS> gradient) {
+            this.gradient = gradient;
+        }
+
+        @Override public void visit(CS neighborState) {
+            if (nextMove == null || gradient.compare(neighborState, nextMove) < 0) {
+                nextMove = neighborState;
+            }
+        }
     }
 }
@@ -35,18 +35,16 @@ public class WavefrontImpl<SS extends StateSpace<CS>, CS extends CollectiveState
         while (!queue.isEmpty()) {
             CS current = queue.remove();
 
-            Set<CS> neighbors = stateSpace.getNeighborStatesOf(current);
-
             D distCurrentToTarget = distanceFromTarget.get(current);
 
-            for (CS neighbor : neighbors) {
-                if (subspace.contains(neighbor) && !distanceFromTarget.containsKey(neighbor)) {
+            stateSpace.forEachNeighborStateOf(current, subspace, neighbor -> {
+                if (!distanceFromTarget.containsKey(neighbor)) {
                     D distNeighborToCurrent = costFunction.getHeuristicCost(neighbor, current);
                     distanceFromTarget.put(neighbor,
                             abstractNumberHandler.add(distCurrentToTarget, distNeighborToCurrent));
                     queue.add(neighbor);
                 }
-            }
+            });
         }
         return GradientSubspacePlan.from(subspace, distanceFromTarget, stateSpace);
     }
@@ -56,11 +54,11 @@ public class WavefrontImpl<SS extends StateSpace<CS>, CS extends CollectiveState
         return buildPlanForSubspace(new SubspaceEqualToStateSpace<>(targetState), stateSpace, costFunction);
     }
 
-    private static class SubspaceEqualToStateSpace<CS extends CollectiveState<?, ?>> implements Subspace<CS> {
+    static class SubspaceEqualToStateSpace<CS extends CollectiveState<?, ?>> implements Subspace<CS> {
 
         private CS targetState;
 
-        private SubspaceEqualToStateSpace(CS targetState) {this.targetState = targetState;}
+        SubspaceEqualToStateSpace(CS targetState) {this.targetState = targetState;}
 
         @Override public boolean contains(CS collectiveState) {
             return true;
@@ -1,13 +1,20 @@
 package pl.edu.agh.idziak.asw;
 
+import com.google.common.collect.ImmutableList;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStar;
+import pl.edu.agh.idziak.asw.common.SimpleEntityFactory;
 import pl.edu.agh.idziak.asw.common.Triple;
-import pl.edu.agh.idziak.asw.impl.grid2d.G2DEntityState;
+import pl.edu.agh.idziak.asw.impl.grid2d.*;
+import pl.edu.agh.idziak.asw.model.CollectivePath;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static org.junit.Assert.*;
+
 /**
  * Created by Tomasz on 13.08.2016.
  */
@@ -23,4 +30,94 @@ public class AlgorithmTestHelper {
     public static <ES> Map<?, ES> mapToTargetState(List<Triple<?, ES, ES>> input) {
         return input.stream().collect(Collectors.toMap(Triple::getOne, Triple::getThree));
     }
+
+    public static G2DInputPlan createInputPlan(int[][] grid, List<Triple<?, G2DEntityState, G2DEntityState>> entities) {
+        return new G2DInputPlan(
+                mapToEntitiesSet(entities),
+                new G2DStateSpace(grid),
+                G2DCollectiveState.from(mapToInitialState(entities)),
+                G2DCollectiveState.from(mapToTargetState(entities)));
+    }
+
+    /**
+     * @return plan of the given number of entities, up to four, each moving from a corner of the grid to the
+     * opposite one
+     */
+    public static G2DInputPlan createCrossingPlan(int[][] grid, int entityCount) {
+        int lastRow = grid.length - 1;
+        int lastCol = grid[0].length - 1;
+        List<Triple<?, G2DEntityState, G2DEntityState>> entities = ImmutableList.of(
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(0, 0), G2DEntityState.of(lastRow, lastCol)),
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(lastRow, lastCol), G2DEntityState.of(0, 0)),
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(0, lastCol), G2DEntityState.of(lastRow, 0)),
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(lastRow, 0), G2DEntityState.of(0, lastCol)));
+        return createInputPlan(grid, entities.subList(0, entityCount));
+    }
+
+    public static int[][] pillarGrid() {
+        return new int[][]{
+                {0, 0, 0, 0, 0},
+                {0, 1, 0, 1, 0},
+                {0, 0, 0, 0, 0},
+                {0, 1, 0, 1, 0},
+                {0, 0, 0, 0, 0}
+        };
+    }
+
+    /**
+     * Plans the given input with the given engine, checks that the path is valid and returns its cost.
+     */
+    public static double calculateCost(CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> collectiveAStar,
+                                       G2DInputPlan inputPlan) {
+        CollectivePath<G2DCollectiveState> path = new G2DAStarPlanner(collectiveAStar).calculatePlan(inputPlan)
+                                                                                      .getCollectivePath();
+        assertValidPath(inputPlan, path);
+        return calculateCost(inputPlan, path);
+    }
+
+    public static double calculateCost(G2DInputPlan inputPlan, CollectivePath<G2DCollectiveState> path) {
+        return G2DPathCostCalculator.calculateCost(path, inputPlan.getCostFunction());
+    }
+
+    /**
+     * Checks that the path leads from the initial to the target state through free cells, moving every entity by at
+     * most one cell per step, without two entities sharing a cell or swapping their cells.
+     */
+    public static void assertValidPath(G2DInputPlan inputPlan, CollectivePath<G2DCollectiveState> path) {
+        assertNotNull(path);
+        List<G2DCollectiveState> states = path.get();
+        assertEquals(inputPlan.getInitialCollectiveState(), states.get(0));
+        assertEquals(inputPlan.getTargetCollectiveState(), states.get(states.size() - 1));
+
+        G2DGrid grid = inputPlan.getStateSpace().getGrid();
+        for (int i = 0; i < states.size(); i++) {
+            G2DCollectiveState state = states.get(i);
+            Set<G2DEntityState> occupied = new HashSet<>();
+            for (Object entity : inputPlan.getEntities()) {
+                G2DEntityState entityState = state.getStateForEntity(entity);
+                assertTrue(grid.isFree(entityState.getRow(), entityState.getCol()));
+                assertTrue("Vertex collision in " + state, occupied.add(entityState));
+                if (i > 0) {
+                    G2DEntityState previous = states.get(i - 1).getStateForEntity(entity);
+                    int distance = Math.abs(previous.getRow() - entityState.getRow())
+                            + Math.abs(previous.getCol() - entityState.getCol());
+                    assertTrue(distance <= 1);
+                }
+            }
+            if (i > 0) {
+                assertNoSwaps(inputPlan, states.get(i - 1), state);
+            }
+        }
+    }
+
+    private static void assertNoSwaps(G2DInputPlan inputPlan, G2DCollectiveState previous, G2DCollectiveState current) {
+        for (Object entity : inputPlan.getEntities()) {
+            for (Object other : inputPlan.getEntities()) {
+                boolean swapped = !entity.equals(other)
+                        && previous.getStateForEntity(entity).equals(current.getStateForEntity(other))
+                        && previous.getStateForEntity(other).equals(current.getStateForEntity(entity));
+                assertFalse("Swap collision between " + previous + " and " + current, swapped);
+            }
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DCollectiveState;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DInputPlan;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DStateSpace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.*;
+
+public class AnytimeCollectiveAStarTest {
+
+    @Test
+    public void publishesCheaperPathsUntilOptimal() {
+        G2DInputPlan inputPlan = createCrossingPlan(new int[5][5], 3);
+        AnytimeCollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> anytimeAStar =
+                new AnytimeCollectiveAStar<>(DoubleHandler.getInstance(), 3, 0.5);
+
+        List<CollectiveAStarResults<G2DCollectiveState>> publishedResults = new ArrayList<>();
+        CollectiveAStarResults<G2DCollectiveState> finalResults =
+                anytimeAStar.calculatePath(inputPlan, false, 1, TimeUnit.MINUTES, publishedResults::add);
+
+        assertFalse(publishedResults.isEmpty());
+        double previousCost = Double.POSITIVE_INFINITY;
+        for (CollectiveAStarResults<G2DCollectiveState> results : publishedResults) {
+            assertValidPath(inputPlan, results.getCollectivePath());
+            double cost = calculateCost(inputPlan, results.getCollectivePath());
+            assertTrue(cost < previousCost);
+            previousCost = cost;
+        }
+        assertEquals(1, finalResults.getSuboptimalityBound(), 1e-9);
+        assertEquals(previousCost, calculateCost(inputPlan, finalResults.getCollectivePath()), 1e-9);
+        assertEquals(calculateCost(new CollectiveAStarImpl<>(DoubleHandler.getInstance()), inputPlan),
+                previousCost, 1e-9);
+    }
+
+    @Test
+    public void stopsAtDeadline() {
+        G2DInputPlan inputPlan = createCrossingPlan(new int[5][5], 3);
+        AnytimeCollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> anytimeAStar =
+                new AnytimeCollectiveAStar<>(DoubleHandler.getInstance(), 3, 0.5, 3, TimeUnit.MILLISECONDS,
+                        new SteppingTicker(1, TimeUnit.MILLISECONDS));
+
+        CollectiveAStarResults<G2DCollectiveState> results = anytimeAStar.calculatePath(inputPlan, false);
+
+        assertEquals(TerminationReason.DEADLINE_EXCEEDED, results.getTerminationReason());
+        assertNull(results.getCollectivePath());
+        assertTrue(results.getStatistics().getExpandedNodesCount() <= 3);
+    }
+
+    @Test
+    public void returnsBestPathWhenStopped() {
+        G2DInputPlan inputPlan = createCrossingPlan(new int[5][5], 3);
+        AnytimeCollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> anytimeAStar =
+                new AnytimeCollectiveAStar<>(DoubleHandler.getInstance(), 3, 0.5);
+        SearchControl searchControl = SearchControl.unlimited();
+
+        CollectiveAStarResults<G2DCollectiveState> results =
+                anytimeAStar.calculatePath(inputPlan, false, searchControl, published -> searchControl.cancel());
+
+        assertEquals(TerminationReason.CANCELLED, results.getTerminationReason());
+        assertValidPath(inputPlan, results.getCollectivePath());
+        assertEquals(3, results.getSuboptimalityBound(), 1e-9);
+    }
+}
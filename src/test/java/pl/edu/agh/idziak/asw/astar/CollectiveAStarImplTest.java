@@ -0,0 +1,110 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.common.*;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DCollectiveState;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DEntityState;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DInputPlan;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DStateSpace;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.*;
+
+public class CollectiveAStarImplTest {
+
+    @Test
+    public void openListsExpandStatesInTheSameOrder() {
+        G2DInputPlan inputPlan = createCrossingPlan(new int[5][5], 3);
+        List<Supplier<OpenList<G2DCollectiveState, Double>>> openLists = ImmutableList.of(
+                ValueSortedPriorityQueue::new, PairingHeap::new, BucketQueue::new);
+
+        CollectiveAStarResults<G2DCollectiveState> heapResults =
+                new CollectiveAStarImpl<G2DStateSpace, G2DCollectiveState, Double>(
+                        DoubleHandler.getInstance(), IndexedDaryHeap::new).calculatePath(inputPlan, false);
+
+        for (Supplier<OpenList<G2DCollectiveState, Double>> openList : openLists) {
+            String name = openList.get().getClass().getSimpleName();
+            CollectiveAStarResults<G2DCollectiveState> results =
+                    new CollectiveAStarImpl<G2DStateSpace, G2DCollectiveState, Double>(
+                            DoubleHandler.getInstance(), openList).calculatePath(inputPlan, false);
+
+            assertEquals(name, heapResults.getStatistics().getExpandedNodesCount(),
+                    results.getStatistics().getExpandedNodesCount());
+            assertEquals(name, heapResults.getCollectivePath().get(), results.getCollectivePath().get());
+        }
+    }
+
+    @Test
+    public void searchControlStopsSearch() {
+        G2DInputPlan inputPlan = createCrossingPlan(new int[5][5], 4);
+        CollectiveAStarImpl<G2DStateSpace, G2DCollectiveState, Double> collectiveAStar =
+                new CollectiveAStarImpl<>(DoubleHandler.getInstance());
+
+        assertTerminationReason(TerminationReason.DEADLINE_EXCEEDED, collectiveAStar.calculatePath(inputPlan, false,
+                SearchControl.newBuilder()
+                             .timeout(100, TimeUnit.MILLISECONDS)
+                             .ticker(new SteppingTicker(50, TimeUnit.MILLISECONDS))
+                             .build()));
+        assertTerminationReason(TerminationReason.EXPANSION_LIMIT_REACHED, collectiveAStar.calculatePath(inputPlan, false,
+                SearchControl.newBuilder().maxExpansions(10).build()));
+        assertTerminationReason(TerminationReason.OPEN_SET_LIMIT_REACHED, collectiveAStar.calculatePath(inputPlan, false,
+                SearchControl.newBuilder().maxOpenSetSize(1000).build()));
+    }
+
+    @Test
+    public void cancelledSearchStopsAtNextExpansion() {
+        G2DInputPlan inputPlan = createCrossingPlan(new int[5][5], 4);
+        SearchControl searchControl = SearchControl.unlimited();
+        AtomicInteger polls = new AtomicInteger();
+        Supplier<OpenList<G2DCollectiveState, Double>> cancellingOpenList =
+                () -> new IndexedDaryHeap<G2DCollectiveState, Double>() {
+                    @Override
+                    public G2DCollectiveState pollFirst() {
+                        if (polls.incrementAndGet() == 10) {
+                            searchControl.cancel();
+                        }
+                        return super.pollFirst();
+                    }
+                };
+        CollectiveAStarImpl<G2DStateSpace, G2DCollectiveState, Double> collectiveAStar =
+                new CollectiveAStarImpl<>(DoubleHandler.getInstance(), cancellingOpenList);
+
+        CollectiveAStarResults<G2DCollectiveState> results =
+                collectiveAStar.calculatePath(inputPlan, false, searchControl);
+
+        assertTerminationReason(TerminationReason.CANCELLED, results);
+        assertEquals(10, results.getStatistics().getExpandedNodesCount());
+    }
+
+    @Test
+    public void searchControlReportsCompletedSearch() {
+        G2DInputPlan reachablePlan = createInputPlan(new int[3][3], ImmutableList.of(
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(0, 0), G2DEntityState.of(2, 2))
+        ));
+        G2DInputPlan unreachablePlan = createInputPlan(new int[][]{
+                {0, 1, 0},
+                {0, 1, 0},
+        }, ImmutableList.of(
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(0, 0), G2DEntityState.of(1, 2))
+        ));
+        CollectiveAStarImpl<G2DStateSpace, G2DCollectiveState, Double> collectiveAStar =
+                new CollectiveAStarImpl<>(DoubleHandler.getInstance());
+
+        CollectiveAStarResults<G2DCollectiveState> results = collectiveAStar.calculatePath(reachablePlan, false);
+        assertEquals(TerminationReason.GOAL_REACHED, results.getTerminationReason());
+        assertValidPath(reachablePlan, results.getCollectivePath());
+        assertEquals(TerminationReason.OPEN_SET_EXHAUSTED,
+                collectiveAStar.calculatePath(unreachablePlan, false).getTerminationReason());
+    }
+
+    private static void assertTerminationReason(TerminationReason expected, CollectiveAStarResults<?> results) {
+        assertEquals(expected, results.getTerminationReason());
+        assertNull(results.getCollectivePath());
+    }
+}
@@ -0,0 +1,29 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DCollectiveState;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DInputPlan;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DStateSpace;
+
+import static org.junit.Assert.assertEquals;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.createCrossingPlan;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.pillarGrid;
+
+public class DoubleCollectiveAStarTest {
+
+    @Test
+    public void expandsSameStatesAsGenericSearch() {
+        G2DInputPlan inputPlan = createCrossingPlan(pillarGrid(), 3);
+
+        CollectiveAStarResults<G2DCollectiveState> genericResults =
+                new CollectiveAStarImpl<G2DStateSpace, G2DCollectiveState, Double>(DoubleHandler.getInstance())
+                        .calculatePath(inputPlan, false);
+        CollectiveAStarResults<G2DCollectiveState> doubleResults =
+                new DoubleCollectiveAStar<G2DStateSpace, G2DCollectiveState>().calculatePath(inputPlan, false);
+
+        assertEquals(genericResults.getStatistics().getExpandedNodesCount(),
+                doubleResults.getStatistics().getExpandedNodesCount());
+        assertEquals(genericResults.getCollectivePath().get(), doubleResults.getCollectivePath().get());
+    }
+}
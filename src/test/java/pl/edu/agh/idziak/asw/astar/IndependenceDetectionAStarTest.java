@@ -0,0 +1,75 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.common.SimpleEntityFactory;
+import pl.edu.agh.idziak.asw.common.Triple;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DCollectiveState;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DEntityState;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DInputPlan;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DInputPlanDecomposer;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DSearchEngine;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DStateSpace;
+import pl.edu.agh.idziak.asw.model.InputPlan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.calculateCost;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.createInputPlan;
+
+public class IndependenceDetectionAStarTest {
+
+    private final Object swappingFirst = SimpleEntityFactory.create();
+    private final Object swappingSecond = SimpleEntityFactory.create();
+    private final Object bottomEntity = SimpleEntityFactory.create();
+    private final Object rightEntity = SimpleEntityFactory.create();
+
+    private final G2DInputPlan inputPlan = createInputPlan(new int[6][6], ImmutableList.of(
+            Triple.of(swappingFirst, G2DEntityState.of(0, 0), G2DEntityState.of(0, 2)),
+            Triple.of(swappingSecond, G2DEntityState.of(0, 2), G2DEntityState.of(0, 0)),
+            Triple.of(bottomEntity, G2DEntityState.of(5, 0), G2DEntityState.of(5, 3)),
+            Triple.of(rightEntity, G2DEntityState.of(3, 5), G2DEntityState.of(5, 5))
+    ));
+
+    @Test
+    public void mergesOnlyConflictingEntities() {
+        List<Set<?>> plannedGroups = new ArrayList<>();
+        G2DInputPlanDecomposer recordingDecomposer = new G2DInputPlanDecomposer() {
+            @Override
+            public G2DInputPlan restrictTo(InputPlan<G2DStateSpace, G2DCollectiveState, Double> inputPlan,
+                                           Set<?> entities) {
+                plannedGroups.add(entities);
+                return super.restrictTo(inputPlan, entities);
+            }
+        };
+        IndependenceDetectionAStar<G2DStateSpace, G2DCollectiveState, Double> independenceDetection =
+                new IndependenceDetectionAStar<>(new CollectiveAStarImpl<>(DoubleHandler.getInstance()),
+                        recordingDecomposer);
+
+        double cost = calculateCost(independenceDetection, inputPlan);
+
+        assertEquals(ImmutableList.of(
+                ImmutableSet.of(swappingFirst),
+                ImmutableSet.of(swappingSecond),
+                ImmutableSet.of(bottomEntity),
+                ImmutableSet.of(rightEntity),
+                ImmutableSet.of(swappingFirst, swappingSecond)
+        ), plannedGroups);
+        assertEquals(calculateCost(new CollectiveAStarImpl<>(DoubleHandler.getInstance()), inputPlan), cost, 1e-9);
+    }
+
+    @Test
+    public void plansWithEveryGroupSearch() {
+        double genericCost = calculateCost(G2DSearchEngine.GENERIC.createWithIndependenceDetection(), inputPlan);
+
+        for (G2DSearchEngine searchEngine : G2DSearchEngine.values()) {
+            assertEquals(searchEngine.name(), genericCost,
+                    calculateCost(searchEngine.createWithIndependenceDetection(), inputPlan), 1e-9);
+        }
+    }
+}
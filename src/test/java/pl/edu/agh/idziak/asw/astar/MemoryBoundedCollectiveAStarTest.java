@@ -0,0 +1,55 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.common.SimpleEntityFactory;
+import pl.edu.agh.idziak.asw.common.Triple;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DCollectiveState;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DEntityState;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DInputPlan;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DStateSpace;
+
+import static org.junit.Assert.*;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.*;
+
+public class MemoryBoundedCollectiveAStarTest {
+
+    @Test
+    public void keepsStoredStatesWithinLimit() {
+        G2DInputPlan inputPlan = createInputPlan(new int[][]{
+                {0, 0, 0, 0},
+                {0, 1, 0, 0},
+                {0, 0, 0, 0}
+        }, ImmutableList.of(
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(0, 0), G2DEntityState.of(2, 3)),
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(2, 3), G2DEntityState.of(0, 0))
+        ));
+
+        double optimalCost = calculateCost(new CollectiveAStarImpl<>(DoubleHandler.getInstance()), inputPlan);
+
+        for (int maxStoredStates : new int[]{1, 20}) {
+            MemoryBoundedCollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> memoryBoundedAStar =
+                    new MemoryBoundedCollectiveAStar<>(DoubleHandler.getInstance(), maxStoredStates);
+            CollectiveAStarResults<G2DCollectiveState> results = memoryBoundedAStar.calculatePath(inputPlan, true);
+            assertFalse(results.getStatistics().hasGivenUp());
+            assertTrue(results.getStatistics().maxSizeOfOpenSet() <= maxStoredStates);
+            assertValidPath(inputPlan, results.getCollectivePath());
+            assertEquals(optimalCost, calculateCost(inputPlan, results.getCollectivePath()), 1e-9);
+        }
+    }
+
+    @Test
+    public void givesUpAfterMaximumExpansions() {
+        G2DInputPlan inputPlan = createCrossingPlan(new int[5][5], 3);
+
+        MemoryBoundedCollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> memoryBoundedAStar =
+                new MemoryBoundedCollectiveAStar<>(DoubleHandler.getInstance(), 100, 1000);
+        CollectiveAStarResults<G2DCollectiveState> results = memoryBoundedAStar.calculatePath(inputPlan, false);
+
+        assertNull(results.getCollectivePath());
+        assertEquals(TerminationReason.EXPANSION_LIMIT_REACHED, results.getTerminationReason());
+        assertTrue(results.getStatistics().hasGivenUp());
+        assertNotNull(results.getStatistics().getClosestHeuristicCost());
+    }
+}
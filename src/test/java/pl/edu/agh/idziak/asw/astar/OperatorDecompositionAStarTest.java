@@ -0,0 +1,36 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DCollectiveState;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DInputPlan;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DStateSpace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.calculateCost;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.createCrossingPlan;
+
+public class OperatorDecompositionAStarTest {
+
+    @Test
+    public void movesOneEntityPerExpansion() {
+        G2DInputPlan inputPlan = createCrossingPlan(new int[5][5], 3);
+
+        CollectiveAStarStats stats =
+                new OperatorDecompositionAStar<G2DStateSpace, G2DCollectiveState, Double>(DoubleHandler.getInstance())
+                        .calculatePath(inputPlan, true)
+                        .getStatistics();
+
+        assertTrue(stats.getExpandedNodesCount() > 0);
+        assertTrue(stats.getGeneratedNodesCount() <= 5 * stats.getExpandedNodesCount());
+    }
+
+    @Test
+    public void findsPathOfTheSameCostAsFullExpansion() {
+        G2DInputPlan inputPlan = createCrossingPlan(new int[5][5], 3);
+
+        assertEquals(calculateCost(new CollectiveAStarImpl<>(DoubleHandler.getInstance()), inputPlan),
+                calculateCost(new OperatorDecompositionAStar<>(DoubleHandler.getInstance()), inputPlan), 1e-9);
+    }
+}
@@ -0,0 +1,39 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.impl.grid2d.G2DInputPlan;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.calculateCost;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.createCrossingPlan;
+
+public class ParallelCollectiveAStarTest {
+
+    @Test
+    public void runsWorkersOnSuppliedExecutor() {
+        G2DInputPlan inputPlan = createCrossingPlan(new int[5][5], 3);
+        double sequentialCost = calculateCost(new CollectiveAStarImpl<>(DoubleHandler.getInstance()), inputPlan);
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            for (int threads : new int[]{1, 4}) {
+                AtomicInteger executedWorkers = new AtomicInteger();
+                double parallelCost = calculateCost(new ParallelCollectiveAStar<>(DoubleHandler.getInstance(), threads,
+                        task -> {
+                            executedWorkers.incrementAndGet();
+                            executor.execute(task);
+                        }), inputPlan);
+
+                assertEquals(sequentialCost, parallelCost, 1e-9);
+                assertEquals(threads - 1, executedWorkers.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
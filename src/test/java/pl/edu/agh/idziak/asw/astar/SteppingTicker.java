@@ -0,0 +1,24 @@
+package pl.edu.agh.idziak.asw.astar;
+
+import com.google.common.base.Ticker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock which moves forward by a fixed step every time it is read, so that a deadline is reached after a known
+ * number of reads regardless of the speed of the machine.
+ */
+class SteppingTicker extends Ticker {
+
+    private final long stepNanos;
+    private long nanos;
+
+    SteppingTicker(long step, TimeUnit unit) {
+        this.stepNanos = unit.toNanos(step);
+    }
+
+    @Override
+    public long read() {
+        return nanos += stepNanos;
+    }
+}
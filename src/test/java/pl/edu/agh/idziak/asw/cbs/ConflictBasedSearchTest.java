@@ -0,0 +1,65 @@
+package pl.edu.agh.idziak.asw.cbs;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarImpl;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarResults;
+import pl.edu.agh.idziak.asw.astar.TerminationReason;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.common.SimpleEntityFactory;
+import pl.edu.agh.idziak.asw.common.Triple;
+import pl.edu.agh.idziak.asw.impl.AlgorithmType;
+import pl.edu.agh.idziak.asw.impl.ExtendedOutputPlan;
+import pl.edu.agh.idziak.asw.impl.grid2d.*;
+
+import static org.junit.Assert.*;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.*;
+
+public class ConflictBasedSearchTest {
+
+    @Test
+    public void resolvesConflictsOfCrossingEntities() {
+        G2DInputPlan inputPlan = createCrossingPlan(pillarGrid(), 3);
+
+        assertEquals(calculateCost(new CollectiveAStarImpl<>(DoubleHandler.getInstance()), inputPlan),
+                calculateCost(new ConflictBasedSearch<>(DoubleHandler.getInstance(), new G2DInputPlanDecomposer()),
+                        inputPlan), 1e-9);
+
+        ExtendedOutputPlan<G2DStateSpace, G2DCollectiveState> outputPlan =
+                new G2DCBSPlanner().calculatePlanWithBenchmark(inputPlan);
+        assertEquals(AlgorithmType.CBS, outputPlan.getBenchmark().getAlgorithmType());
+        assertValidPath(inputPlan, outputPlan.getOutputPlan().getCollectivePath());
+    }
+
+    @Test
+    public void stopsAtConstraintTreeLimit() {
+        G2DInputPlan inputPlan = createInputPlan(new int[][]{
+                {1, 0, 1, 1},
+                {0, 0, 0, 0},
+        }, ImmutableList.of(
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(1, 0), G2DEntityState.of(1, 3)),
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(1, 3), G2DEntityState.of(1, 0))
+        ));
+
+        CollectiveAStarResults<G2DCollectiveState> results =
+                new ConflictBasedSearch<>(DoubleHandler.getInstance(), new G2DInputPlanDecomposer(), 1)
+                        .calculatePath(inputPlan, false);
+
+        assertNull(results.getCollectivePath());
+        assertEquals(TerminationReason.EXPANSION_LIMIT_REACHED, results.getTerminationReason());
+        assertTrue(results.getStatistics().hasGivenUp());
+    }
+
+    @Test
+    public void plansManyEntities() {
+        ImmutableList.Builder<Triple<?, G2DEntityState, G2DEntityState>> entities = ImmutableList.builder();
+        for (int i = 0; i < 8; i++) {
+            entities.add(Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(i, 0), G2DEntityState.of(7 - i, 7)));
+        }
+        G2DInputPlan inputPlan = createInputPlan(new int[8][8], entities.build());
+
+        ExtendedOutputPlan<G2DStateSpace, G2DCollectiveState> outputPlan =
+                new G2DCBSPlanner().calculatePlanWithBenchmark(inputPlan);
+        assertValidPath(inputPlan, outputPlan.getOutputPlan().getCollectivePath());
+    }
+}
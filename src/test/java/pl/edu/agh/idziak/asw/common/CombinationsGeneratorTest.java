@@ -3,9 +3,14 @@ package pl.edu.agh.idziak.asw.common;
 import com.google.common.collect.ImmutableList;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
 /**
  * Created by Tomasz on 21.07.2016.
  */
@@ -65,5 +70,21 @@ public class CombinationsGeneratorTest {
         result.forEachRemaining(System.out::println);
     }
 
-
-}
\ No newline at end of file
+    @Test
+    public void forEachCombinationSkipsRejectedPrefixes() throws Exception {
+        List<String> combinations = new ArrayList<>();
+        int[] testedPositions = new int[3];
+
+        // rejects equal choices at neighbouring positions
+        CombinationsGenerator.forEachCombination(new int[]{2, 3, 2},
+                (choices, position) -> {
+                    testedPositions[position]++;
+                    return position == 0 || choices[position] != choices[position - 1];
+                },
+                choices -> combinations.add(Arrays.toString(choices)));
+
+        assertEquals(ImmutableList.of("[0, 1, 0]", "[0, 2, 0]", "[0, 2, 1]", "[1, 0, 1]", "[1, 2, 0]", "[1, 2, 1]"),
+                combinations);
+        assertArrayEquals(new int[]{2, 6, 8}, testedPositions);
+    }
+}
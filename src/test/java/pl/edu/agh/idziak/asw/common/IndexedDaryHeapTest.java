@@ -0,0 +1,72 @@
+package pl.edu.agh.idziak.asw.common;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IndexedDaryHeapTest {
+
+    @Test
+    public void pollsInValueOrderWithLifoTies() {
+        IndexedDaryHeap<String, Integer> heap = new IndexedDaryHeap<>();
+        heap.add("one", 2);
+        heap.add("two", 2);
+        heap.add("three", 0);
+        heap.add("four", 0);
+
+        assertEquals("four", heap.pollFirst());
+        assertEquals("three", heap.pollFirst());
+        assertEquals("two", heap.pollFirst());
+        assertEquals("one", heap.pollFirst());
+        assertNull(heap.pollFirst());
+    }
+
+    @Test
+    public void decreasesKey() {
+        IndexedDaryHeap<String, Integer> heap = new IndexedDaryHeap<>();
+        heap.add("one", 1);
+        heap.add("two", 5);
+
+        assertFalse(heap.add("two", 7));
+        assertTrue(heap.add("two", 0));
+        assertEquals(2, heap.size());
+        assertEquals("two", heap.pollFirst());
+        assertFalse(heap.containsKey("two"));
+        assertEquals("one", heap.pollFirst());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void matchesSortedOrder() {
+        Random random = new Random(7);
+        for (int arity = 2; arity <= 5; arity++) {
+            IndexedDaryHeap<Integer, Integer> heap = new IndexedDaryHeap<>(arity);
+            int[] values = new int[1000];
+            for (int key = 0; key < values.length; key++) {
+                values[key] = random.nextInt(10_000);
+                heap.add(key, values[key]);
+            }
+            for (int i = 0; i < 500; i++) {
+                int key = random.nextInt(values.length);
+                int value = random.nextInt(10_000);
+                if (heap.add(key, value)) {
+                    values[key] = value;
+                }
+            }
+
+            List<Integer> polledValues = new ArrayList<>();
+            Integer key;
+            while ((key = heap.pollFirst()) != null) {
+                polledValues.add(values[key]);
+            }
+            assertEquals(values.length, polledValues.size());
+            for (int i = 1; i < polledValues.size(); i++) {
+                assertTrue(polledValues.get(i - 1) <= polledValues.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package pl.edu.agh.idziak.asw.common;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks every {@link OpenList} implementation against the same sequences of operations.
+ */
+public class OpenListTest {
+
+    private static final List<Supplier<OpenList<Integer, Double>>> IMPLEMENTATIONS = Arrays.asList(
+            IndexedDaryHeap::new,
+            () -> new IndexedDaryHeap<>(2),
+            PairingHeap::new,
+            BucketQueue::new,
+            ValueSortedPriorityQueue::new
+    );
+
+    @Test
+    public void breaksTiesOnHigherTieBreaker() {
+        for (Supplier<OpenList<Integer, Double>> implementation : IMPLEMENTATIONS) {
+            OpenList<Integer, Double> openList = implementation.get();
+            openList.add(1, 5.0, 1.0);
+            openList.add(2, 5.0, 3.0);
+            openList.add(3, 5.0, 2.0);
+            openList.add(4, 4.5, 0.0);
+
+            assertEquals(Arrays.asList(4, 2, 3, 1), pollAll(openList));
+        }
+    }
+
+    @Test
+    public void lowersValuesOfQueuedKeys() {
+        for (Supplier<OpenList<Integer, Double>> implementation : IMPLEMENTATIONS) {
+            OpenList<Integer, Double> openList = implementation.get();
+            openList.add(1, 2.0);
+            openList.add(2, 3.0);
+            openList.add(3, 4.0);
+
+            assertFalse(openList.add(3, 4.5));
+            assertTrue(openList.add(3, 1.0));
+            assertEquals(3, openList.size());
+            assertEquals(Arrays.asList(3, 1, 2), pollAll(openList));
+            assertTrue(openList.isEmpty());
+        }
+    }
+
+    @Test
+    public void pollsInValueOrder() {
+        for (Supplier<OpenList<Integer, Double>> implementation : IMPLEMENTATIONS) {
+            Random random = new Random(11);
+            OpenList<Integer, Double> openList = implementation.get();
+            Map<Integer, Double> queuedValues = new HashMap<>();
+
+            for (int i = 0; i < 5000; i++) {
+                int key = random.nextInt(2000);
+                double value = 0.5 * random.nextInt(200) + 1.0001 * random.nextInt(50);
+                if (openList.add(key, value, value / 2)) {
+                    queuedValues.put(key, value);
+                }
+                if (random.nextInt(4) == 0) {
+                    Integer first = openList.pollFirst();
+                    assertFalse(openList.containsKey(first));
+                    assertEquals(Collections.min(queuedValues.values()), queuedValues.remove(first));
+                }
+            }
+
+            assertEquals(queuedValues.size(), openList.size());
+            double previous = Double.NEGATIVE_INFINITY;
+            Integer key;
+            while ((key = openList.pollFirst()) != null) {
+                double value = queuedValues.remove(key);
+                assertTrue(value >= previous);
+                previous = value;
+            }
+            assertTrue(queuedValues.isEmpty());
+        }
+    }
+
+    private static List<Integer> pollAll(OpenList<Integer, Double> openList) {
+        List<Integer> keys = new ArrayList<>();
+        Integer key;
+        while ((key = openList.pollFirst()) != null) {
+            keys.add(key);
+        }
+        return keys;
+    }
+}
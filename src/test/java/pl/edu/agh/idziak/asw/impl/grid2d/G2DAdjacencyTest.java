@@ -0,0 +1,47 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class G2DAdjacencyTest {
+
+    @Test
+    public void listsFreeCellsReachableInOneStep() {
+        G2DGrid grid = new G2DArrayGrid(new int[][]{
+                {0, 0, 1},
+                {0, 1, 0},
+                {0, 0, 0}
+        });
+        assertNeighbors(new G2DCompiledAdjacency(grid));
+        assertNeighbors(new G2DGridAdjacency(grid));
+    }
+
+    private static void assertNeighbors(G2DAdjacency adjacency) {
+        assertEquals(setOf(0, 1, 3), neighborsOf(adjacency, 0));
+        assertEquals(setOf(1, 0), neighborsOf(adjacency, 1));
+        assertEquals(setOf(1, 3, 5, 7), neighborsOf(adjacency, 4));
+        assertEquals(setOf(1, 5), neighborsOf(adjacency, 2));
+        assertEquals(setOf(8, 5, 7), neighborsOf(adjacency, 8));
+        assertEquals(3, adjacency.countNeighborsOf(8));
+    }
+
+    private static Set<Integer> neighborsOf(G2DAdjacency adjacency, int cell) {
+        Set<Integer> cells = new HashSet<>();
+        for (int i = adjacency.firstIndexOf(cell); i < adjacency.endIndexOf(cell); i++) {
+            cells.add(adjacency.getNeighborCell(i));
+        }
+        return cells;
+    }
+
+    private static Set<Integer> setOf(Integer... cells) {
+        Set<Integer> set = new HashSet<>();
+        for (Integer cell : cells) {
+            set.add(cell);
+        }
+        return set;
+    }
+}
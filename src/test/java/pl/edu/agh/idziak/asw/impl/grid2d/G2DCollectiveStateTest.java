@@ -0,0 +1,98 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class G2DCollectiveStateTest {
+
+    @Test
+    public void packsLargeGridsWithoutCollisions() {
+        G2DStateSpace stateSpace = new G2DStateSpace(new int[100][300]);
+        List<String> entities = ImmutableList.of("a", "b", "c", "d", "e", "f", "g");
+        G2DStateEncoding encoding = stateSpace.getEncoding(entities);
+
+        assertEquals(16, encoding.getBitsPerEntity());
+        assertEquals(4, encoding.getEntitiesPerWord());
+        assertEquals(2, encoding.getWords());
+
+        Random random = new Random(7);
+        Map<List<Long>, Map<Object, G2DEntityState>> statesByIdentity = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            Map<Object, G2DEntityState> entityStates = new HashMap<>();
+            for (String entity : entities) {
+                entityStates.put(entity, G2DEntityState.of(random.nextInt(100), random.nextInt(300)));
+            }
+            int[] cells = encoding.cellsOf(entityStates);
+            long[] words = encoding.encode(cells);
+            Map<Object, G2DEntityState> previous =
+                    statesByIdentity.put(Arrays.asList(words[0], words[1]), entityStates);
+            assertTrue(previous == null || previous.equals(entityStates));
+
+            int[] decoded = new int[cells.length];
+            encoding.decode(words, 0, decoded);
+            assertArrayEquals(cells, decoded);
+        }
+    }
+
+    @Test
+    public void packedStatesEqualUnpackedStates() {
+        G2DStateSpace stateSpace = new G2DStateSpace(new int[20][20]);
+        Map<Object, G2DEntityState> entityStates = ImmutableMap.of(
+                "a", G2DEntityState.of(19, 0), "b", G2DEntityState.of(17, 18));
+        G2DCollectiveState unpacked = G2DCollectiveState.from(entityStates);
+        G2DCollectiveState packed = stateSpace.encode(unpacked);
+
+        assertFalse(unpacked.hasPackedIdentity());
+        assertTrue(packed.hasPackedIdentity());
+        assertEquals(unpacked, packed);
+        assertEquals(packed, unpacked);
+        assertEquals(unpacked.hashCode(), packed.hashCode());
+        assertEquals(packed, stateSpace.encode(G2DCollectiveState.from(ImmutableMap.of(
+                "a", G2DEntityState.of(19, 0), "b", G2DEntityState.of(17, 18)))));
+        assertNotEquals(packed, stateSpace.encode(G2DCollectiveState.from(ImmutableMap.of(
+                "a", G2DEntityState.of(17, 18), "b", G2DEntityState.of(19, 0)))));
+
+        for (G2DCollectiveState neighbor : stateSpace.getNeighborStatesOf(packed)) {
+            assertSame(packed.getEncoding(), neighbor.getEncoding());
+            assertEquals(neighbor, G2DCollectiveState.from(neighbor.getEntityStates()));
+        }
+    }
+
+    @Test
+    public void cellBackedStateBehavesLikeMapBackedState() {
+        G2DStateSpace stateSpace = new G2DStateSpace(new int[6][9]);
+        List<Object> entities = ImmutableList.of(1, "two", 3L);
+        G2DStateEncoding encoding = stateSpace.getEncoding(entities);
+        G2DCollectiveState cellBacked = G2DCollectiveState.of(encoding, new int[]{0, 13, 53});
+        G2DCollectiveState mapBacked = G2DCollectiveState.from(ImmutableMap.of(
+                3L, G2DEntityState.of(5, 8), 1, G2DEntityState.of(0, 0), "two", G2DEntityState.of(1, 4)));
+
+        assertEquals(mapBacked.hashCode(), cellBacked.hashCode());
+        assertEquals(mapBacked, cellBacked);
+        assertEquals(G2DEntityState.of(1, 4), cellBacked.getStateForEntity("two"));
+        assertNull(cellBacked.getStateForEntity("four"));
+        assertEquals(mapBacked.getEntityStates(), cellBacked.getEntityStates());
+        assertEquals(53, stateSpace.encode(mapBacked, entities).getCell(2));
+    }
+
+    @Test
+    public void sharesEntityStatesOfCells() {
+        G2DStateSpace stateSpace = new G2DStateSpace(new int[4][4]);
+        G2DCollectiveState collectiveState = stateSpace.encode(G2DCollectiveState.from(ImmutableMap.of(
+                "a", G2DEntityState.of(1, 1), "b", G2DEntityState.of(2, 2))));
+
+        assertSame(stateSpace.getEntityState(1, 1), collectiveState.getStateForEntity("a"));
+        for (G2DEntityState neighbor : stateSpace.getNeighborStatesOf(G2DEntityState.of(2, 2))) {
+            assertSame(stateSpace.getEntityState(neighbor.getRow(), neighbor.getCol()), neighbor);
+        }
+        for (G2DCollectiveState neighbor : stateSpace.getNeighborStatesOf(collectiveState)) {
+            G2DEntityState entityState = neighbor.getStateForEntity("b");
+            assertSame(stateSpace.getEntityState(entityState.getRow(), entityState.getCol()), entityState);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class G2DCostFunctionTest {
+
+    @Test
+    public void neighborCostsMatchCostsComputedFromScratch() {
+        int[][] grid = new int[7][7];
+        grid[3] = new int[]{0, 1, 1, 1, 1, 1, 0};
+        G2DStateSpace stateSpace = new G2DStateSpace(grid);
+        List<String> entities = ImmutableList.of("a", "b", "c");
+        G2DCollectiveState state = stateSpace.encode(G2DCollectiveState.from(ImmutableMap.of(
+                "a", G2DEntityState.of(2, 2), "b", G2DEntityState.of(4, 3), "c", G2DEntityState.of(0, 6))), entities);
+        G2DCollectiveState goal = stateSpace.encode(G2DCollectiveState.from(ImmutableMap.of(
+                "a", G2DEntityState.of(6, 2), "b", G2DEntityState.of(0, 0), "c", G2DEntityState.of(0, 6))), entities);
+
+        G2DCostFunction trueDistances = G2DCostFunction.withTrueDistances(stateSpace);
+        G2DCostFunction boundToGoal = trueDistances.withTarget(goal);
+        assertNotNull(boundToGoal.getTargetDistances(goal));
+        for (G2DCollectiveState neighbor : stateSpace.getNeighborStatesOf(state)) {
+            assertEquals(trueDistances.getHeuristicCost(neighbor, goal), boundToGoal.getHeuristicCost(neighbor, goal));
+        }
+
+        for (G2DCostFunction costFunction : new G2DCostFunction[]{
+                new G2DCostFunction(), trueDistances, boundToGoal}) {
+            double stateCost = costFunction.getHeuristicCost(state, goal);
+            for (G2DCollectiveState neighbor : stateSpace.getNeighborStatesOf(state)) {
+                assertEquals(costFunction.getHeuristicCost(neighbor, goal),
+                        costFunction.getHeuristicCostOfNeighbor(state, stateCost, neighbor, goal), 1e-9);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarImpl;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarStats;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.common.SimpleEntityFactory;
+import pl.edu.agh.idziak.asw.common.Triple;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.calculateCost;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.createInputPlan;
+
+public class G2DDistanceTablesTest {
+
+    private static final int[][] MAZE = {
+            {0, 0, 0, 0, 0, 0, 0},
+            {1, 1, 1, 1, 1, 1, 0},
+            {0, 0, 0, 0, 0, 0, 0},
+            {1, 1, 1, 1, 1, 1, 0},
+            {0, 0, 0, 0, 0, 0, 0}
+    };
+
+    @Test
+    public void distancesAreShortestPathsAroundWalls() {
+        G2DDistanceTables distanceTables = G2DDistanceTables.forGrid(MAZE);
+
+        assertEquals(16, distanceTables.getDistance(0, 0, 4, 0));
+        assertEquals(14, distanceTables.getDistance(0, 0, 2, 0));
+        assertEquals(3, distanceTables.getDistance(2, 3, 2, 0));
+        assertEquals(G2DDistanceTables.UNREACHABLE, distanceTables.getDistance(0, 0, 1, 0));
+
+        for (int startRow = 0; startRow < MAZE.length; startRow++) {
+            for (int startCol = 0; startCol < MAZE[0].length; startCol++) {
+                if (MAZE[startRow][startCol] != 0) {
+                    continue;
+                }
+                int[][] expected = breadthFirstDistances(startRow, startCol);
+                for (int row = 0; row < MAZE.length; row++) {
+                    for (int col = 0; col < MAZE[0].length; col++) {
+                        assertEquals(expected[row][col], distanceTables.getDistance(startRow, startCol, row, col));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void distanceIsLengthOfOptimalPath() {
+        G2DInputPlan inputPlan = createInputPlan(MAZE, ImmutableList.of(
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(0, 0), G2DEntityState.of(4, 0))
+        ));
+
+        int pathLength = new G2DAStarPlanner(new CollectiveAStarImpl<>(DoubleHandler.getInstance()))
+                .calculatePlan(inputPlan).getCollectivePath().get().size() - 1;
+
+        assertEquals(G2DDistanceTables.forGrid(MAZE).getDistance(0, 0, 4, 0), pathLength);
+    }
+
+    @Test
+    public void trueDistanceHeuristicOnMaze() {
+        List<Triple<?, G2DEntityState, G2DEntityState>> entities = ImmutableList.of(
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(0, 0), G2DEntityState.of(4, 0)),
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(2, 3), G2DEntityState.of(2, 0))
+        );
+        G2DInputPlan manhattanPlan = createInputPlan(MAZE, entities);
+        G2DInputPlan trueDistancePlan = G2DInputPlan.withTrueDistanceHeuristic(manhattanPlan.getEntities(),
+                manhattanPlan.getStateSpace(), manhattanPlan.getInitialCollectiveState(),
+                manhattanPlan.getTargetCollectiveState());
+
+        double manhattanHeuristic = manhattanPlan.getCostFunction().getHeuristicCost(
+                manhattanPlan.getInitialCollectiveState(), manhattanPlan.getTargetCollectiveState());
+        double trueDistanceHeuristic = trueDistancePlan.getCostFunction().getHeuristicCost(
+                trueDistancePlan.getInitialCollectiveState(), trueDistancePlan.getTargetCollectiveState());
+        assertTrue(trueDistanceHeuristic > manhattanHeuristic);
+
+        double optimalCost = calculateCost(new CollectiveAStarImpl<>(DoubleHandler.getInstance()), manhattanPlan);
+        assertTrue(trueDistanceHeuristic <= optimalCost);
+
+        for (G2DSearchEngine searchEngine : G2DSearchEngine.values()) {
+            CollectiveAStarStats manhattanStats = searchEngine.create().calculatePath(manhattanPlan, false).getStatistics();
+            CollectiveAStarStats trueDistanceStats = searchEngine.create().calculatePath(trueDistancePlan, false).getStatistics();
+
+            assertTrue(searchEngine.name(),
+                    trueDistanceStats.getExpandedNodesCount() < manhattanStats.getExpandedNodesCount());
+            assertEquals(searchEngine.name(), optimalCost, calculateCost(searchEngine.create(), trueDistancePlan), 1e-9);
+        }
+    }
+
+    private static int[][] breadthFirstDistances(int startRow, int startCol) {
+        int[][] distances = new int[MAZE.length][MAZE[0].length];
+        for (int[] row : distances) {
+            Arrays.fill(row, G2DDistanceTables.UNREACHABLE);
+        }
+        Deque<int[]> queue = new ArrayDeque<>();
+        distances[startRow][startCol] = 0;
+        queue.add(new int[]{startRow, startCol});
+
+        while (!queue.isEmpty()) {
+            int[] cell = queue.poll();
+            for (int[] move : new int[][]{{-1, 0}, {1, 0}, {0, -1}, {0, 1}}) {
+                int row = cell[0] + move[0];
+                int col = cell[1] + move[1];
+                if (row >= 0 && row < MAZE.length && col >= 0 && col < MAZE[0].length
+                        && MAZE[row][col] == 0 && distances[row][col] == G2DDistanceTables.UNREACHABLE) {
+                    distances[row][col] = distances[cell[0]][cell[1]] + 1;
+                    queue.add(new int[]{row, col});
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,94 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class G2DGridTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void storagesHoldTheSameObstacles() throws IOException {
+        int[][] array = randomGrid(37, 53, new Random(3));
+        G2DGrid arrayGrid = new G2DArrayGrid(array);
+        Path file = folder.newFile("grid.bin").toPath();
+        G2DMappedGrid.write(arrayGrid, file);
+
+        G2DGrid bitSetGrid = G2DBitSetGrid.from(array);
+        G2DGrid mappedGrid = G2DMappedGrid.open(file);
+
+        for (G2DGrid grid : new G2DGrid[]{bitSetGrid, mappedGrid}) {
+            assertEquals(37, grid.countRows());
+            assertEquals(53, grid.countCols());
+            for (int row = 0; row < 37; row++) {
+                for (int col = 0; col < 53; col++) {
+                    assertEquals(arrayGrid.isFree(row, col), grid.isFree(row, col));
+                    assertEquals(arrayGrid.isFree(row, col), grid.isFree(row * 53 + col));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsFilesWithoutGrid() throws IOException {
+        G2DMappedGrid.open(folder.newFile("empty.bin").toPath());
+    }
+
+    @Test
+    public void searchesMappedGrid() throws IOException {
+        Path file = folder.newFile("grid.bin").toPath();
+        G2DMappedGrid.write(new G2DArrayGrid(new int[][]{
+                {0, 0, 0, 0, 0},
+                {0, 1, 1, 1, 0},
+                {0, 0, 0, 0, 0}
+        }), file);
+        G2DStateSpace stateSpace = new G2DStateSpace(G2DMappedGrid.open(file));
+
+        assertEquals(1, stateSpace.getGridArray()[1][2]);
+        assertEquals(3, stateSpace.getNeighborStatesOf(G2DEntityState.of(0, 2)).size());
+        assertEquals(6, G2DDistanceTables.forStateSpace(stateSpace).getDistance(1, 0, 1, 4));
+    }
+
+    @Test
+    public void printsGridWithoutCopyingIt() {
+        G2DStateSpace stateSpace = new G2DStateSpace(G2DBitSetGrid.from(new int[][]{
+                {0, 1},
+                {0, 0}
+        }));
+
+        assertEquals("[0, 1]\n[0, 0]\n", stateSpace.toString());
+    }
+
+    @Test
+    public void largeGridsFallBackToManhattanHeuristic() {
+        G2DGrid grid = new G2DBitSetGrid(4096, 1025, new BitSet());
+        assertTrue(grid.countCells() > G2DStateSpace.MAX_COMPILED_CELLS);
+
+        assertFalse(G2DDistanceTables.supports(grid));
+        assertNull(G2DCostFunction.withTrueDistances(new G2DStateSpace(grid)).getDistanceTables());
+        try {
+            G2DDistanceTables.forGrid(grid);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static int[][] randomGrid(int rows, int cols, Random random) {
+        int[][] grid = new int[rows][cols];
+        for (int[] row : grid) {
+            for (int col = 0; col < cols; col++) {
+                row[col] = random.nextInt(4) == 0 ? 1 : 0;
+            }
+        }
+        return grid;
+    }
+}
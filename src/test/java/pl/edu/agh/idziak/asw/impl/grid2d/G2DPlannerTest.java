@@ -0,0 +1,37 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.impl.ExtendedOutputPlan;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.createCrossingPlan;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.pillarGrid;
+
+public class G2DPlannerTest {
+
+    @Test
+    public void buildsDeviationZonePlansOnExecutor() {
+        G2DInputPlan inputPlan = createCrossingPlan(pillarGrid(), 3);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ExtendedOutputPlan<G2DStateSpace, G2DCollectiveState> sequentialPlan =
+                    new G2DPlanner(G2DSearchEngine.DOUBLE.create(), MoreExecutors.directExecutor())
+                            .calculatePlanWithBenchmark(inputPlan);
+            ExtendedOutputPlan<G2DStateSpace, G2DCollectiveState> parallelPlan =
+                    new G2DPlanner(G2DSearchEngine.DOUBLE.create(), executor).calculatePlanWithBenchmark(inputPlan);
+
+            assertFalse(sequentialPlan.getOutputPlan().getSubspacePlans().isEmpty());
+            assertEquals(sequentialPlan.getOutputPlan().getCollectivePath().get(),
+                    parallelPlan.getOutputPlan().getCollectivePath().get());
+            assertEquals(sequentialPlan.getOutputPlan().getSubspacePlans().size(),
+                    parallelPlan.getOutputPlan().getSubspacePlans().size());
+            assertNotNull(parallelPlan.getBenchmark().getWavefrontCpuTimeMs());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
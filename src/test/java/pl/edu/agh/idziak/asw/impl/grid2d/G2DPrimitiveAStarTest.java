@@ -0,0 +1,29 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarImpl;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarResults;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+
+import static org.junit.Assert.assertEquals;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.*;
+
+public class G2DPrimitiveAStarTest {
+
+    @Test
+    public void expandsSameStatesAsGenericSearch() {
+        G2DInputPlan inputPlan = createCrossingPlan(pillarGrid(), 3);
+
+        CollectiveAStarResults<G2DCollectiveState> genericResults =
+                new CollectiveAStarImpl<G2DStateSpace, G2DCollectiveState, Double>(DoubleHandler.getInstance())
+                        .calculatePath(inputPlan, false);
+        CollectiveAStarResults<G2DCollectiveState> primitiveResults =
+                new G2DPrimitiveAStar().calculatePath(inputPlan, false);
+
+        assertEquals(genericResults.getStatistics().getExpandedNodesCount(),
+                primitiveResults.getStatistics().getExpandedNodesCount());
+        assertValidPath(inputPlan, primitiveResults.getCollectivePath());
+        assertEquals(calculateCost(inputPlan, genericResults.getCollectivePath()),
+                calculateCost(inputPlan, primitiveResults.getCollectivePath()), 1e-9);
+    }
+}
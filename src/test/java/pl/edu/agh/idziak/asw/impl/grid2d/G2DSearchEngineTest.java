@@ -0,0 +1,110 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.AlgorithmTestHelper;
+import pl.edu.agh.idziak.asw.astar.AnytimeCollectiveAStar;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStar;
+import pl.edu.agh.idziak.asw.astar.CollectiveAStarResults;
+import pl.edu.agh.idziak.asw.astar.MemoryBoundedCollectiveAStar;
+import pl.edu.agh.idziak.asw.astar.SearchControl;
+import pl.edu.agh.idziak.asw.astar.TerminationReason;
+import pl.edu.agh.idziak.asw.cbs.ConflictBasedSearch;
+import pl.edu.agh.idziak.asw.common.DoubleHandler;
+import pl.edu.agh.idziak.asw.common.SimpleEntityFactory;
+import pl.edu.agh.idziak.asw.common.Triple;
+import pl.edu.agh.idziak.asw.impl.ExtendedOutputPlan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.createCrossingPlan;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.createInputPlan;
+import static pl.edu.agh.idziak.asw.AlgorithmTestHelper.pillarGrid;
+
+/**
+ * Runs every {@link G2DSearchEngine}, and the other engines of collective A*, on the same plans and checks that they
+ * agree. Behaviour specific to an engine is tested next to that engine.
+ */
+public class G2DSearchEngineTest {
+
+    @Test
+    public void crossingEntities() {
+        G2DInputPlan inputPlan = createCrossingPlan(pillarGrid(), 3);
+
+        double genericCost = calculateCost(G2DSearchEngine.GENERIC, inputPlan);
+
+        for (G2DSearchEngine searchEngine : G2DSearchEngine.values()) {
+            assertEquals(searchEngine.name(), genericCost, calculateCost(searchEngine, inputPlan), 1e-9);
+        }
+    }
+
+    @Test
+    public void corridorSwap() {
+        G2DInputPlan inputPlan = createInputPlan(new int[][]{
+                {1, 0, 1, 1},
+                {0, 0, 0, 0},
+        }, ImmutableList.of(
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(1, 0), G2DEntityState.of(1, 3)),
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(1, 3), G2DEntityState.of(1, 0))
+        ));
+
+        double genericCost = calculateCost(G2DSearchEngine.GENERIC, inputPlan);
+
+        for (G2DSearchEngine searchEngine : G2DSearchEngine.values()) {
+            assertEquals(searchEngine.name(), genericCost, calculateCost(searchEngine, inputPlan), 1e-9);
+        }
+    }
+
+    @Test
+    public void unreachableTarget() {
+        G2DInputPlan inputPlan = createInputPlan(new int[][]{
+                {0, 1, 0},
+                {0, 1, 0},
+        }, ImmutableList.of(
+                Triple.of(SimpleEntityFactory.create(), G2DEntityState.of(0, 0), G2DEntityState.of(1, 2))
+        ));
+
+        for (G2DSearchEngine searchEngine : G2DSearchEngine.values()) {
+            assertNull(searchEngine.name(), searchEngine.create().calculatePath(inputPlan));
+        }
+        assertNull(new ConflictBasedSearch<>(DoubleHandler.getInstance(), new G2DInputPlanDecomposer())
+                .calculatePath(inputPlan));
+    }
+
+    @Test
+    public void everyEngineHonoursSearchControl() {
+        G2DInputPlan inputPlan = createCrossingPlan(new int[5][5], 3);
+        List<CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double>> engines = new ArrayList<>();
+        for (G2DSearchEngine searchEngine : G2DSearchEngine.values()) {
+            engines.add(searchEngine.create());
+            engines.add(searchEngine.createWithIndependenceDetection());
+        }
+        engines.add(new AnytimeCollectiveAStar<>(DoubleHandler.getInstance(), 3, 0.5));
+        engines.add(new MemoryBoundedCollectiveAStar<>(DoubleHandler.getInstance(), 100));
+        engines.add(new ConflictBasedSearch<>(DoubleHandler.getInstance(), new G2DInputPlanDecomposer()));
+
+        SearchControl cancelled = SearchControl.unlimited();
+        cancelled.cancel();
+
+        for (CollectiveAStar<G2DStateSpace, G2DCollectiveState, Double> engine : engines) {
+            assertTerminationReason(TerminationReason.CANCELLED, engine.calculatePath(inputPlan, false, cancelled));
+            assertTerminationReason(TerminationReason.EXPANSION_LIMIT_REACHED, engine.calculatePath(inputPlan, false,
+                    SearchControl.newBuilder().maxExpansions(1).build()));
+        }
+
+        ExtendedOutputPlan<G2DStateSpace, G2DCollectiveState> plan =
+                new G2DPlanner().calculatePlanWithBenchmark(inputPlan, cancelled);
+        assertNull(plan.getOutputPlan().getCollectivePath());
+    }
+
+    private static void assertTerminationReason(TerminationReason expected, CollectiveAStarResults<?> results) {
+        assertEquals(expected, results.getTerminationReason());
+        assertNull(results.getCollectivePath());
+    }
+
+    private static double calculateCost(G2DSearchEngine searchEngine, G2DInputPlan inputPlan) {
+        return AlgorithmTestHelper.calculateCost(searchEngine.create(), inputPlan);
+    }
+}
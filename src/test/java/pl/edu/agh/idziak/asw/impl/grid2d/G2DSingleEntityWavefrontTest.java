@@ -0,0 +1,76 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.common.SimpleEntityFactory;
+import pl.edu.agh.idziak.asw.model.CollectivePath;
+import pl.edu.agh.idziak.asw.wavefront.SubspacePlan;
+import pl.edu.agh.idziak.asw.wavefront.impl.DoubleWavefront;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class G2DSingleEntityWavefrontTest {
+
+    @Test
+    public void followsSameGradientAsGenericWavefront() {
+        G2DStateSpace stateSpace = new G2DStateSpace(new int[][]{
+                {0, 0, 0, 0, 0},
+                {0, 1, 1, 1, 0},
+                {0, 0, 0, 1, 0},
+                {1, 1, 0, 0, 0}
+        });
+        Object entity = SimpleEntityFactory.create();
+        Set<G2DEntityState> states = new HashSet<>();
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 5; col++) {
+                if (stateSpace.getGridArray()[row][col] <= 0 && !(row == 0 && col == 4)) {
+                    states.add(stateSpace.getEntityState(row, col));
+                }
+            }
+        }
+        G2DCollectiveState target = stateOf(entity, 2, 2);
+        G2DNonCollectiveSubspace subspace = new G2DNonCollectiveSubspace(states, target);
+        G2DCostFunction costFunction = new G2DCostFunction();
+
+        SubspacePlan<G2DCollectiveState> plan =
+                new G2DSingleEntityWavefront().buildPlanForSubspace(subspace, stateSpace, costFunction);
+        SubspacePlan<G2DCollectiveState> referencePlan =
+                new DoubleWavefront<G2DStateSpace, G2DCollectiveState>().buildPlanForSubspace(subspace, stateSpace, costFunction);
+
+        assertTrue(plan instanceof G2DSingleEntitySubspacePlan);
+        assertEquals(5, ((G2DSingleEntitySubspacePlan) plan).getDistance(1, 4));
+        assertEquals(-1, ((G2DSingleEntitySubspacePlan) plan).getDistance(0, 4));
+        for (G2DEntityState state : states) {
+            G2DCollectiveState start = stateOf(entity, state.getRow(), state.getCol());
+            CollectivePath<G2DCollectiveState> path = plan.constructPath(start, target);
+            assertNotNull(path);
+            assertEquals(state.toString(), referencePlan.constructPath(start, target).get().size(), path.get().size());
+            assertEquals(target, path.get().get(path.get().size() - 1));
+            assertSame(plan.getNextMove(start), plan.getNextMove(start));
+            assertSame(referencePlan.getNextMove(start), referencePlan.getNextMove(start));
+        }
+    }
+
+    @Test
+    public void noNextMoveWithoutReachableNeighbour() {
+        G2DStateSpace stateSpace = new G2DStateSpace(new int[][]{{0, 0, 0}});
+        Object entity = SimpleEntityFactory.create();
+        G2DCollectiveState target = stateOf(entity, 0, 0);
+        G2DNonCollectiveSubspace subspace = new G2DNonCollectiveSubspace(
+                Collections.singleton(stateSpace.getEntityState(0, 0)), target);
+
+        SubspacePlan<G2DCollectiveState> plan =
+                new G2DSingleEntityWavefront().buildPlanForSubspace(subspace, stateSpace, new G2DCostFunction());
+
+        assertNull(plan.getNextMove(stateOf(entity, 0, 2)));
+        assertNull(plan.constructPath(stateOf(entity, 0, 2), target));
+    }
+
+    private static G2DCollectiveState stateOf(Object entity, int row, int col) {
+        return G2DCollectiveState.from(ImmutableMap.of(entity, G2DEntityState.of(row, col)));
+    }
+}
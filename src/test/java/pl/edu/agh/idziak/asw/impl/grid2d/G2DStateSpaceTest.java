@@ -0,0 +1,52 @@
+package pl.edu.agh.idziak.asw.impl.grid2d;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import pl.edu.agh.idziak.asw.common.SimpleEntityFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class G2DStateSpaceTest {
+
+    @Test
+    public void neighborsWithinSubspace() {
+        G2DStateSpace stateSpace = new G2DStateSpace(new int[4][4]);
+        Object first = SimpleEntityFactory.create();
+        Object second = SimpleEntityFactory.create();
+        G2DCollectiveState state = G2DCollectiveState.from(ImmutableMap.of(
+                first, G2DEntityState.of(1, 1), second, G2DEntityState.of(1, 2)));
+
+        Set<G2DEntityState> zoneStates = ImmutableSet.of(G2DEntityState.of(0, 1), G2DEntityState.of(1, 1),
+                G2DEntityState.of(1, 2), G2DEntityState.of(2, 2), G2DEntityState.of(0, 2));
+        G2DNonCollectiveSubspace nonCollectiveSubspace = new G2DNonCollectiveSubspace(zoneStates, state);
+        assertNeighborsWithin(stateSpace, state, nonCollectiveSubspace);
+        assertTrue(nonCollectiveSubspace.contains(stateSpace.encode(state)));
+        assertTrue(nonCollectiveSubspace.containsEntityState(0, 2));
+        assertFalse(nonCollectiveSubspace.containsEntityState(2, 1));
+        assertFalse(nonCollectiveSubspace.containsEntityState(3, 3));
+        assertFalse(nonCollectiveSubspace.contains(G2DCollectiveState.from(ImmutableMap.of(
+                first, G2DEntityState.of(2, 1), second, G2DEntityState.of(1, 2)))));
+
+        Set<G2DCollectiveState> collectiveStates = stateSpace.getNeighborStatesOf(state).stream()
+                                                             .filter(neighbor -> neighbor.getStateForEntity(first).getRow() == 1)
+                                                             .collect(Collectors.toSet());
+        collectiveStates.add(state);
+        assertNeighborsWithin(stateSpace, state, new G2DCollectiveSubspace(collectiveStates, state));
+    }
+
+    private static void assertNeighborsWithin(G2DStateSpace stateSpace, G2DCollectiveState state, G2DSubspace subspace) {
+        Set<G2DCollectiveState> expected = stateSpace.getNeighborStatesOf(state).stream()
+                                                     .filter(subspace::contains)
+                                                     .collect(Collectors.toSet());
+        Set<G2DCollectiveState> visited = new HashSet<>();
+        stateSpace.forEachNeighborStateOf(state, subspace, visited::add);
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, visited);
+    }
+}